@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Запуск бенчмарков. Принимает те же аргументы, что и org.openjdk.jmh.Main,
+ * и всегда добавляет профилировщик сборщика мусора, чтобы в отчёте было
+ * кол-во байт, выделенных за операцию (gc.alloc.rate.norm)
+ */
+public class BenchmarkMain {
+    /**
+     * Основной метод
+     *
+     * @param args аргументы JMH, например имя бенчмарка или -p count=1000
+     * @throws CommandLineOptionException неверные аргументы
+     * @throws RunnerException            ошибка запуска бенчмарков
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private BenchmarkMain() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -0,0 +1,204 @@
+package benchmarks;
+
+import app.Line;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.CoordinateSystem2i;
+import misc.PointStore;
+import misc.Transform2d;
+import misc.Vector2d;
+import misc.Vector2i;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки геометрических примитивов: пересечения прямых, арифметики
+ * векторов и перевода координат. Аргументы берутся по кругу из заранее
+ * созданных массивов, чтобы JIT не мог свернуть вычисления в константу
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    /**
+     * размер массивов аргументов, степень двойки
+     */
+    private static final int SIZE = 1 << 10;
+    /**
+     * задача, методы пересечения которой измеряются
+     */
+    private Task task;
+    /**
+     * прямые
+     */
+    private Line[] lines;
+    /**
+     * векторы
+     */
+    private Vector2d[] vectors;
+    /**
+     * целочисленные векторы
+     */
+    private Vector2i[] pixels;
+    /**
+     * система координат окна
+     */
+    private CoordinateSystem2i windowCS;
+    /**
+     * система координат задачи
+     */
+    private CoordinateSystem2d ownCS;
+    /**
+     * преобразование из СК задачи в СК окна
+     */
+    private Transform2d transform;
+    /**
+     * координаты X векторов
+     */
+    private double[] xs;
+    /**
+     * координаты Y векторов
+     */
+    private double[] ys;
+    /**
+     * координаты векторов в окне через одну
+     */
+    private float[] screen;
+    /**
+     * номер текущего аргумента
+     */
+    private int next;
+
+    /**
+     * Подготовить аргументы
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        task = PointSets.makeTask(new PointStore());
+        lines = new Line[SIZE];
+        vectors = new Vector2d[SIZE];
+        pixels = new Vector2i[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            vectors[i] = new Vector2d(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+            lines[i] = new Line(vectors[i], new Vector2d(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10));
+            pixels[i] = new Vector2i(random.nextInt(1600), random.nextInt(900));
+        }
+        windowCS = new CoordinateSystem2i(1600, 900);
+        ownCS = new CoordinateSystem2d(-10, -10, 20, 20);
+        transform = windowCS.getTransform(ownCS);
+        xs = new double[SIZE];
+        ys = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            xs[i] = vectors[i].x;
+            ys[i] = vectors[i].y;
+        }
+        screen = new float[SIZE * 2];
+    }
+
+    /**
+     * Перейти к следующему аргументу
+     *
+     * @return номер аргумента
+     */
+    private int advance() {
+        next = (next + 1) & (SIZE - 1);
+        return next;
+    }
+
+    /**
+     * Точка пересечения двух прямых
+     *
+     * @return точка, null для параллельных прямых
+     */
+    @Benchmark
+    public Vector2d crossLine() {
+        int i = advance();
+        return task.crossLine(lines[i], lines[(i + 1) & (SIZE - 1)]);
+    }
+
+    /**
+     * Пересечение прямой с отрезком
+     *
+     * @return флаг
+     */
+    @Benchmark
+    public boolean crossLineSegment() {
+        int i = advance();
+        int j = (i + 1) & (SIZE - 1);
+        return task.crossLineSegment(lines[i], lines[j], lines[j].pos1, lines[j].pos2);
+    }
+
+    /**
+     * Сумма, разность и умножение векторов на число
+     *
+     * @return результат
+     */
+    @Benchmark
+    public Vector2d vectorArithmetic() {
+        int i = advance();
+        Vector2d a = vectors[i];
+        Vector2d b = vectors[(i + 1) & (SIZE - 1)];
+        return Vector2d.mul(Vector2d.subtract(Vector2d.sum(a, b), b), 0.5);
+    }
+
+    /**
+     * Перевод точки задачи в координаты окна
+     *
+     * @return координаты в окне
+     */
+    @Benchmark
+    public Vector2i windowCoords() {
+        return windowCS.getCoords(vectors[advance()], ownCS);
+    }
+
+    /**
+     * Перевод точки окна в координаты задачи
+     *
+     * @return координаты в задаче
+     */
+    @Benchmark
+    public Vector2d taskCoords() {
+        return ownCS.getCoords(pixels[advance()], windowCS);
+    }
+
+    /**
+     * Перевод всех SIZE векторов в координаты окна по одному через getCoords
+     *
+     * @return координаты в окне
+     */
+    @Benchmark
+    public float[] windowCoordsLoop() {
+        for (int i = 0; i < SIZE; i++) {
+            Vector2i pos = windowCS.getCoords(xs[i], ys[i], ownCS);
+            screen[i * 2] = pos.x;
+            screen[i * 2 + 1] = pos.y;
+        }
+        return screen;
+    }
+
+    /**
+     * Перевод всех SIZE векторов в координаты окна одним вызовом Transform2d
+     *
+     * @return координаты в окне
+     */
+    @Benchmark
+    public float[] windowCoordsBulk() {
+        transform.toWindow(xs, ys, 0, SIZE, screen);
+        return screen;
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+
+import java.util.Random;
+
+/**
+ * Наборы точек для бенчмарков. Точки и треугольник лежат в той же
+ * области [-10, 10] x [-10, 10], что и у задачи в приложении
+ */
+public class PointSets {
+    /**
+     * Распределение точек
+     */
+    public enum Distribution {
+        /**
+         * равномерно по всей области
+         */
+        UNIFORM,
+        /**
+         * в узлах решётки, с большим кол-вом совпадающих точек и прямых
+         */
+        LATTICE,
+        /**
+         * скопления вокруг нескольких центров
+         */
+        CLUSTERED,
+        /**
+         * на нескольких прямых
+         */
+        COLLINEAR
+    }
+
+    /**
+     * кол-во скоплений и прямых
+     */
+    private static final int GROUPS = 8;
+    /**
+     * кол-во узлов решётки по одной оси
+     */
+    private static final int LATTICE_SIZE = 30;
+
+    /**
+     * Создать точки
+     *
+     * @param distribution распределение
+     * @param count        кол-во точек
+     * @param seed         зерно генератора, чтобы наборы повторялись между запусками
+     * @return точки
+     */
+    public static PointStore generate(Distribution distribution, int count, long seed) {
+        Random random = new Random(seed);
+        PointStore points = new PointStore(count);
+        // центры скоплений или пары точек, задающих прямые
+        double[] groups = new double[GROUPS * 4];
+        for (int g = 0; g < groups.length; g++)
+            groups[g] = random.nextDouble() * 20 - 10;
+        for (int i = 0; i < count; i++) {
+            int g = random.nextInt(GROUPS) * 4;
+            switch (distribution) {
+                case UNIFORM -> points.add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+                case LATTICE -> points.add(random.nextInt(LATTICE_SIZE) * 20.0 / LATTICE_SIZE - 10,
+                        random.nextInt(LATTICE_SIZE) * 20.0 / LATTICE_SIZE - 10);
+                case CLUSTERED -> points.add(groups[g] + random.nextGaussian(), groups[g + 1] + random.nextGaussian());
+                case COLLINEAR -> {
+                    double t = random.nextDouble();
+                    points.add(groups[g] + t * (groups[g + 2] - groups[g]), groups[g + 1] + t * (groups[g + 3] - groups[g + 1]));
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Создать задачу с треугольником
+     *
+     * @param points точки
+     * @return задача
+     */
+    public static Task makeTask(PointStore points) {
+        Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), points, null);
+        task.addTrianglePoint(-6, -5);
+        task.addTrianglePoint(7, -4);
+        task.addTrianglePoint(1, 8);
+        return task;
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private PointSets() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
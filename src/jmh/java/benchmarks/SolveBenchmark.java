@@ -0,0 +1,85 @@
+package benchmarks;
+
+import app.AngularSolver;
+import app.ApproximateSolver;
+import app.ChordAnswer;
+import app.PairSolver;
+import app.Task;
+import app.Triangle;
+import misc.PointStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк решения задачи. Полный перебор на 100000 точках занимает
+ * десятки секунд на одну операцию, поэтому для быстрого прогона
+ * набор параметров стоит сузить, например -p count=100,1000.
+ * Решатели вызываются напрямую, без Task.solve: применение ответа
+ * к задаче и запись в лог не должны попадать в замеры и gc.alloc.rate.norm
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+    /**
+     * кол-во точек
+     */
+    @Param({"100", "1000", "10000", "100000"})
+    public int count;
+    /**
+     * распределение точек
+     */
+    @Param({"UNIFORM", "LATTICE", "CLUSTERED", "COLLINEAR"})
+    public PointSets.Distribution distribution;
+    /**
+     * способ решения
+     */
+    @Param({"SEQUENTIAL", "ANGULAR", "APPROXIMATE"})
+    public Task.SolveMode mode;
+    /**
+     * треугольник
+     */
+    private Triangle triangle;
+    /**
+     * точки
+     */
+    private PointStore points;
+
+    /**
+     * Подготовить задачу
+     */
+    @Setup
+    public void setup() {
+        Task task = PointSets.makeTask(PointSets.generate(distribution, count, 1));
+        triangle = task.getTriangle();
+        points = task.getPoints();
+    }
+
+    /**
+     * Решить задачу
+     *
+     * @return лучший отрезок, чтобы JIT не выбросил решение
+     */
+    @Benchmark
+    public ChordAnswer solve() {
+        return switch (mode) {
+            case ANGULAR -> AngularSolver.solve(triangle, points);
+            case APPROXIMATE -> ApproximateSolver.solve(triangle, points);
+            default -> PairSolver.solveSequential(triangle, points);
+        };
+    }
+}
@@ -1,4 +1,5 @@
 import app.Application;
+import app.BatchSolver;
 import io.github.humbleui.jwm.App;
 
 /**
@@ -8,9 +9,14 @@ public class Main {
     /**
      * Главный метод приложения
      *
-     * @param args аргументы командной строки
+     * @param args аргументы командной строки; если заданы файлы задач,
+     *             они решаются без окна (см. BatchSolver)
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(BatchSolver.run(args));
+            return;
+        }
         App.start(Application::new);
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package app;
+
+import misc.PointStore;
+
+import java.util.Arrays;
+
+/**
+ * Поиск отрезка методом ветвей и границ по направлениям прямых.
+ * Для каждой точки P известна верхняя оценка длины отрезка любой прямой,
+ * проходящей через неё (см. ChordKernel.bound). Длина отрезка прямой через пару точек не больше меньшей из их оценок,
+ * поэтому точки перебираются по убыванию оценки, и каждая сравнивается
+ * только с точками дальше по этому порядку, у которых оценка больше
+ * лучшей найденной длины. Прямые через внешнюю точку P пересекают
+ * треугольник, только если их направление лежит в угле, под которым из P
+ * виден треугольник, или в противоположном ему угле, поэтому точки вне
+ * этих двух окон сразу пропускаются. Перебор заканчивается, как только
+ * оценка очередной точки не больше лучшей длины или лучшая длина достигла
+ * наибольшей стороны треугольника.
+ */
+public class AngularSolver {
+    /**
+     * запас для оценок, чтобы погрешность вычислений не отбросила пару,
+     * которая могла бы оказаться лучшей
+     */
+    private static final double BOUND_SLACK = 1 + 1e-9;
+    /**
+     * доля квадрата наибольшей стороны, после которой перебор заканчивается
+     */
+    private static final double LONGEST_SLACK = 1 - 1e-12;
+
+    /**
+     * Найти лучший отрезок
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @return лучший отрезок, индексы точек упорядочены по возрастанию
+     */
+    public static ChordAnswer solve(Triangle triangle, PointStore points) {
+        return solve(triangle, points, new SolveMonitor());
+    }
+
+    /**
+     * Найти лучший отрезок
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param monitor  наблюдение за ходом решения
+     * @return лучший отрезок, при остановке - лучший среди пройденных пар
+     */
+    public static ChordAnswer solve(Triangle triangle, PointStore points, SolveMonitor monitor) {
+        ChordKernel kernel = new ChordKernel(triangle);
+        ChordAnswer answer = new ChordAnswer();
+        int[] unique = PairSolver.uniquePoints(points);
+        int n = unique.length;
+        double longestSq = kernel.getLongest() * kernel.getLongest();
+
+        // оценки точек и порядок по их убыванию: оценка округляется вверх до float,
+        // у положительных float порядок битов совпадает с порядком чисел
+        double[] bounds = new double[n];
+        long[] keys = new long[n];
+        for (int a = 0; a < n; a++) {
+            bounds[a] = kernel.bound(points.getX(unique[a]), points.getY(unique[a]));
+            keys[a] = (long) Float.floatToIntBits(Math.nextUp((float) bounds[a])) << 32 | a;
+        }
+        Arrays.sort(keys);
+
+        // точки в порядке убывания оценок, подряд в памяти
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] boundsSq = new double[n];
+        int[] indices = new int[n];
+        for (int k = 0; k < n; k++) {
+            int a = (int) keys[n - 1 - k];
+            indices[k] = unique[a];
+            xs[k] = points.getX(unique[a]);
+            ys[k] = points.getY(unique[a]);
+            boundsSq[k] = bounds[a] * bounds[a] * BOUND_SLACK;
+        }
+
+        // пары, отброшенные по оценке, тоже считаются пройденными
+        monitor.start((long) n * (n - 1) / 2);
+        double best = 0;
+        // точки с номерами от end и дальше не могут дать отрезок длиннее лучшего
+        int end = n;
+        double[] window = new double[4];
+        for (int k = 0; k < end; k++) {
+            if (best >= longestSq * LONGEST_SLACK)
+                break;
+            while (end > k && boundsSq[end - 1] <= best)
+                end--;
+            double px = xs[k];
+            double py = ys[k];
+            kernel.setAnchor(px, py);
+            // границы окна направлений: треугольник виден из P между лучами l и r
+            boolean windowed = kernel.window(px, py, window);
+            double lx = window[0], ly = window[1], rx = window[2], ry = window[3];
+            for (int j = k + 1; j < end; j++) {
+                double qx = xs[j] - px;
+                double qy = ys[j] - py;
+                // направление на Q вне обоих окон: прямая мимо треугольника
+                if (windowed && (lx * qy - ly * qx) * (qx * ry - qy * rx) < 0)
+                    continue;
+                answer.pairs++;
+                double lengthSq = kernel.lengthSq(xs[j], ys[j], best);
+                if (lengthSq > 0 && answer.offer(lengthSq, Math.min(indices[k], indices[j]), Math.max(indices[k], indices[j]))) {
+                    best = answer.lengthSq;
+                    monitor.offer(answer.lengthSq, answer.i, answer.j);
+                    while (end > j + 1 && boundsSq[end - 1] <= best)
+                        end--;
+                }
+            }
+            if (!monitor.advance(n - 1 - k))
+                break;
+        }
+        return answer;
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private AngularSolver() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
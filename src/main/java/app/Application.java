@@ -1,6 +1,7 @@
 package app;
 
 import controls.InputFactory;
+import controls.TextCache;
 import io.github.humbleui.jwm.*;
 import io.github.humbleui.jwm.skija.EventFrameSkija;
 import io.github.humbleui.skija.Canvas;
@@ -26,6 +27,10 @@ public class Application implements Consumer<Event> {
      * окно приложения
      */
     private final Window window;
+    /**
+     * СК окна, переиспользуется, пока не изменится размер окна
+     */
+    private CoordinateSystem2i frameCS;
     /**
      * отступы панелей
      */
@@ -63,6 +68,10 @@ public class Application implements Consumer<Event> {
      * кнопка изменений: у мака - это `Command`, у windows - `Ctrl`
      */
     public static final KeyModifier MODIFIER = Platform.CURRENT == Platform.MACOS ? KeyModifier.MAC_COMMAND : KeyModifier.CONTROL;
+    /**
+     * сколько ждать записи сохранений при закрытии окна, мс
+     */
+    private static final long SAVE_TIMEOUT = 30_000;
     /**
      * флаг того, что окно развёрнуто на весь экран
      */
@@ -94,6 +103,8 @@ public class Application implements Consumer<Event> {
         );
         // задаём обработчиком событий текущий объект
         window.setEventListener(this);
+        // окно перерисовывается только по запросам планировщика кадров
+        FrameScheduler.setWindow(window);
         // задаём заголовок
         window.setTitle("Java 2D");
         // задаём размер окна
@@ -139,18 +150,44 @@ public class Application implements Consumer<Event> {
      */
     @Override
     public void accept(Event e) {
+        long start = System.nanoTime();
+        dispatch(e);
+        // время кадра учитывается отдельно в paint
+        if (!(e instanceof EventFrameSkija))
+            FrameStats.addEventTime(System.nanoTime() - start);
+    }
+
+    /**
+     * Обработать событие
+     *
+     * @param e событие
+     */
+    private void dispatch(Event e) {
         // если событие - это закрытие окна
         if (e instanceof EventWindowClose) {
+            FrameScheduler.setWindow(null);
+            // освобождаем разметку текста и кисти, остановив экспорт, который ими рисует
+            TextCache.clear();
+            ImageExporter.close();
+            Paints.clear();
+            // дописываем журнал и дожидаемся запрошенных сохранений задачи
+            if (PanelRendering.task.getJournal() != null)
+                PanelRendering.task.getJournal().close();
+            if (!TaskSaver.shutdown(SAVE_TIMEOUT))
+                System.err.println("сохранение задачи не завершилось за " + SAVE_TIMEOUT + " мс");
             // завершаем работу приложения
             App.terminate();
         } else if (e instanceof EventWindowCloseRequest) {
             window.close();
-        } else if (e instanceof EventFrame) {
-            // запускаем рисование кадра
-            window.requestFrame();
+        } else if (e instanceof EventWindowResize || e instanceof EventWindowFocusIn) {
+            // новый кадр нужен только при изменении окна, а не после каждого кадра
+            FrameScheduler.invalidate();
         } else if (e instanceof EventFrameSkija ee) {
             Surface s = ee.getSurface();
-            paint(s.getCanvas(), new CoordinateSystem2i(s.getWidth(), s.getHeight()));
+            // новая СК нужна, только если размер окна изменился
+            if (frameCS == null || frameCS.getSize().x != s.getWidth() || frameCS.getSize().y != s.getHeight())
+                frameCS = new CoordinateSystem2i(s.getWidth(), s.getHeight());
+            paint(s.getCanvas(), frameCS);
         } // кнопки клавиатуры
         else if (e instanceof EventKey eventKey) {
             // кнопка нажата с Ctrl
@@ -160,8 +197,19 @@ public class Application implements Consumer<Event> {
                     switch (eventKey.getKey()) {
                         case W -> window.close();
                         case H -> window.minimize();
-                        case S -> PanelRendering.save();
-                        case O -> PanelRendering.load();
+                        // с Shift задача сохраняется и загружается в двоичном формате
+                        case S -> {
+                            if (eventKey.isModifierDown(KeyModifier.SHIFT))
+                                PanelRendering.saveBinary();
+                            else
+                                PanelRendering.save();
+                        }
+                        case O -> {
+                            if (eventKey.isModifierDown(KeyModifier.SHIFT))
+                                PanelRendering.loadBinary();
+                            else
+                                PanelRendering.load();
+                        }
                         case DIGIT1 -> {
                             if (maximizedWindow)
                                 window.restore();
@@ -170,6 +218,10 @@ public class Application implements Consumer<Event> {
                             maximizedWindow = !maximizedWindow;
                         }
                         case DIGIT2 -> window.setOpacity(window.getOpacity() == 1f ? 0.5f : 1f);
+                        // возвращаем масштаб и сдвиг задачи к исходным
+                        case DIGIT0 -> PanelRendering.task.resetView();
+                        // показываем или скрываем статистику кадров
+                        case DIGIT3 -> FrameStats.toggle();
                     }
                 else
                     switch (eventKey.getKey()) {
@@ -182,6 +234,7 @@ public class Application implements Consumer<Event> {
                         }
                         case TAB -> InputFactory.nextTab();
                     }
+                FrameScheduler.invalidate();
             }
         }
         panelControl.accept(e);
@@ -199,11 +252,23 @@ public class Application implements Consumer<Event> {
         // запоминаем изменения (пока что там просто заливка цветом)
         canvas.save();
         // очищаем канвас
+        FrameStats.beginFrame();
         canvas.clear(APP_BACKGROUND_COLOR);
+        long start = System.nanoTime();
         panelRendering.paint(canvas, windowCS);
+        FrameStats.endSection(FrameStats.Section.RENDERING, start);
+        start = System.nanoTime();
         panelControl.paint(canvas, windowCS);
+        FrameStats.endSection(FrameStats.Section.CONTROL, start);
+        start = System.nanoTime();
         panelLog.paint(canvas, windowCS);
+        FrameStats.endSection(FrameStats.Section.LOG, start);
+        start = System.nanoTime();
         panelHelp.paint(canvas, windowCS);
+        FrameStats.endSection(FrameStats.Section.HELP, start);
+        // статистика рисуется поверх панелей, если оверлей включён
+        FrameStats.render(canvas, windowCS);
+        FrameStats.endFrame();
         // восстанавливаем состояние канваса
         canvas.restore();
     }
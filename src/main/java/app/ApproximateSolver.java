@@ -0,0 +1,186 @@
+package app;
+
+import misc.LongPairSet;
+import misc.PointStore;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Приближённый поиск отрезка с гарантированной оценкой качества.
+ * Точки добавляются по одной в порядке убывания оценки ChordKernel.bound,
+ * и каждая новая точка сравнивается со всеми уже добавленными. Когда
+ * добавлены первые m точек, все пары среди них уже проверены, а любая
+ * другая пара содержит точку с оценкой не больше оценки m-й точки, поэтому
+ * оптимальная длина не больше max(лучшая найденная, оценка m-й точки).
+ * Чтобы не сортировать миллион точек, они раскладываются по BUCKETS
+ * корзинам по оценке (сортировка подсчётом), и вместо оценки точки
+ * берётся верхняя граница её корзины - верхняя оценка остаётся верной.
+ * Перебор идёт раундами с удвоением кол-ва точек и заканчивается, когда
+ * лучшая длина отличается от верхней оценки меньше чем в (1 - epsilon) раз,
+ * когда верхняя оценка сравнялась с лучшей длиной (ответ точный)
+ * или когда истёк лимит времени.
+ */
+public class ApproximateSolver {
+    /**
+     * кол-во корзин по оценке
+     */
+    private static final int BUCKETS = 4096;
+    /**
+     * кол-во точек в первом раунде
+     */
+    private static final int FIRST_ROUND = 64;
+    /**
+     * двоичный логарифм размера таблицы добавленных точек
+     */
+    private static final int ADDED_LOG = 16;
+    /**
+     * запас для оценок, чтобы погрешность вычислений не занизила верхнюю оценку
+     */
+    private static final double BOUND_SLACK = 1 + 1e-9;
+    /**
+     * допустимое по умолчанию относительное отличие от оптимума
+     */
+    public static final double DEFAULT_EPSILON = 1e-3;
+
+    /**
+     * Найти отрезок не более чем в (1 - DEFAULT_EPSILON) раз короче оптимального
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @return лучший найденный отрезок с верхней оценкой оптимальной длины
+     */
+    public static ChordAnswer solve(Triangle triangle, PointStore points) {
+        return solve(triangle, points, DEFAULT_EPSILON, new SolveMonitor(), null);
+    }
+
+    /**
+     * Найти отрезок не более чем в (1 - epsilon) раз короче оптимального
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param epsilon  допустимое относительное отличие от оптимума, 0 - точное решение
+     * @param monitor  наблюдение за ходом решения
+     * @param onRound  обработчик конца раунда, получает копию текущего ответа
+     *                 с верхней оценкой, может быть null
+     * @return лучший найденный отрезок с верхней оценкой оптимальной длины
+     */
+    public static ChordAnswer solve(Triangle triangle, PointStore points, double epsilon,
+                                    SolveMonitor monitor, Consumer<ChordAnswer> onRound) {
+        ChordKernel kernel = new ChordKernel(triangle);
+        ChordAnswer answer = new ChordAnswer();
+        int n = points.size();
+        double[] pxs = points.xs();
+        double[] pys = points.ys();
+        double longest = kernel.getLongest();
+
+        // раскладываем индексы точек по корзинам оценок
+        int[] buckets = new int[n];
+        int[] starts = new int[BUCKETS + 1];
+        for (int a = 0; a < n; a++) {
+            double bound = kernel.bound(pxs[a], pys[a]);
+            int bucket = longest > 0 ? (int) Math.min(BUCKETS - 1, Math.max(0, bound / longest * BUCKETS)) : 0;
+            buckets[a] = bucket;
+            starts[BUCKETS - bucket]++;
+        }
+        // начала корзин в порядке убывания оценок
+        for (int b = 1; b <= BUCKETS; b++)
+            starts[b] += starts[b - 1];
+        int[] order = new int[n];
+        for (int a = 0; a < n; a++)
+            order[starts[BUCKETS - 1 - buckets[a]]++] = a;
+
+        // координаты добавленных точек подряд в памяти: обычно добавляется
+        // лишь малая часть точек, поэтому массивы растут по мере надобности
+        double[] xs = new double[Math.min(n, FIRST_ROUND)];
+        double[] ys = new double[xs.length];
+        int[] indices = new int[xs.length];
+        int count = 0;
+
+        monitor.start((long) n * (n - 1) / 2);
+        double[] window = new double[4];
+        // добавленные точки; точка, совпадающая с добавленной, задаёт те же
+        // прямые и пропускается. Повторы ищутся только среди добавленных
+        // точек: поиск по всем точкам дороже самих раундов, а при
+        // переполнении таблица забывает точки, и повтор просто проверяется ещё раз
+        LongPairSet added = new LongPairSet(ADDED_LOG);
+        double keepSq = (1 - epsilon) * (1 - epsilon);
+        double best = 0;
+        int nextRound = FIRST_ROUND;
+        int m = 0;
+        for (; m < n; m++) {
+            // все пары среди первых m точек проверены
+            answer.upperBoundSq = Math.max(best, edgeSq(longest, buckets[order[m]]));
+            if (best >= answer.upperBoundSq * keepSq)
+                break;
+            if (m == nextRound) {
+                if (onRound != null)
+                    onRound.accept(answer.copy());
+                nextRound *= 2;
+            }
+            int index = order[m];
+            double px = pxs[index];
+            double py = pys[index];
+            // + 0.0 превращает -0.0 в 0.0
+            if (!added.add(Double.doubleToLongBits(px + 0.0), Double.doubleToLongBits(py + 0.0)))
+                continue;
+            kernel.setAnchor(px, py);
+            boolean windowed = kernel.window(px, py, window);
+            double lx = window[0], ly = window[1], rx = window[2], ry = window[3];
+            for (int j = 0; j < count; j++) {
+                double qx = xs[j] - px;
+                double qy = ys[j] - py;
+                // направление на Q вне обоих окон: прямая мимо треугольника
+                if (windowed && (lx * qy - ly * qx) * (qx * ry - qy * rx) < 0)
+                    continue;
+                answer.pairs++;
+                double lengthSq = kernel.lengthSq(xs[j], ys[j], best);
+                if (lengthSq > 0 && answer.offer(lengthSq, Math.min(index, indices[j]), Math.max(index, indices[j]))) {
+                    best = answer.lengthSq;
+                    monitor.offer(answer.lengthSq, answer.i, answer.j);
+                }
+            }
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, Math.min(n, count * 2));
+                ys = Arrays.copyOf(ys, xs.length);
+                indices = Arrays.copyOf(indices, xs.length);
+            }
+            xs[count] = px;
+            ys[count] = py;
+            indices[count] = index;
+            count++;
+            if (!monitor.advance(count - 1)) {
+                // пары с m-й точкой уже проверены
+                m++;
+                break;
+            }
+        }
+        // все точки добавлены: ответ точный
+        if (m == n)
+            answer.upperBoundSq = best;
+        else
+            answer.upperBoundSq = Math.max(best, edgeSq(longest, buckets[order[m]]));
+        if (onRound != null)
+            onRound.accept(answer.copy());
+        return answer;
+    }
+
+    /**
+     * Квадрат верхней границы корзины оценок с запасом на погрешность
+     *
+     * @param longest длина наибольшей стороны треугольника
+     * @param bucket  номер корзины
+     * @return квадрат границы
+     */
+    private static double edgeSq(double longest, int bucket) {
+        double edge = Math.min(longest, longest * (bucket + 1) / BUCKETS);
+        return edge * edge * BOUND_SLACK;
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private ApproximateSolver() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -0,0 +1,293 @@
+package app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import misc.PointStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Пакетное решение задач без окна. Принимает файлы задач в формате
+ * conf.json или двоичном .tsk (как их сохраняет PanelRendering.save)
+ * или папки с ними, решает файлы параллельно и пишет по одной строке JSON на файл:
+ * точки ответа, концы отрезка внутри треугольника, длину и время.
+ * Окно JWM не создаётся, а Skija нужна, только если заданы картинки
+ * (-p), поэтому за один запуск JVM можно решить тысячи файлов.
+ */
+public class BatchSolver {
+    /**
+     * справка по аргументам
+     */
+    private static final String USAGE = """
+            аргументы: [-o файл] [-t потоки] [-m способ] [-l секунды] [-p папка] [-s размер] файл.json|файл.tsk|папка ...
+              -o  файл для результатов, по умолчанию стандартный вывод
+              -t  кол-во файлов, решаемых одновременно, по умолчанию кол-во процессоров
+              -m  способ решения: SEQUENTIAL, PARALLEL, DEDUP, ANGULAR, APPROXIMATE, по умолчанию ANGULAR
+              -l  лимит времени на один файл в секундах, 0 - без лимита
+              -p  папка для картинок PNG решённых задач, по умолчанию картинки не сохраняются
+              -s  размер картинок: ШИРИНАxВЫСОТА или одно число для квадрата, по умолчанию 2048""";
+    /**
+     * загрузчик JSON, после настройки его можно использовать из нескольких потоков
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * сторона картинки по умолчанию
+     */
+    private static final int DEFAULT_IMAGE_SIZE = 2048;
+
+    /**
+     * Решить файлы, перечисленные в аргументах
+     *
+     * @param args аргументы командной строки
+     * @return код завершения: 0 - все файлы решены, 1 - были ошибки, 2 - неверные аргументы
+     */
+    public static int run(String[] args) {
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Task.SolveMode mode = Task.SolveMode.ANGULAR;
+        long timeLimit = 0;
+        Path imageDir = null;
+        int imageWidth = DEFAULT_IMAGE_SIZE, imageHeight = DEFAULT_IMAGE_SIZE;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o" -> output = Paths.get(args[++i]);
+                    case "-t" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "-m" -> mode = Task.SolveMode.valueOf(args[++i].toUpperCase());
+                    case "-l" -> timeLimit = (long) (Double.parseDouble(args[++i]) * 1000);
+                    case "-p" -> imageDir = Paths.get(args[++i]);
+                    case "-s" -> {
+                        String[] size = args[++i].toLowerCase().split("x");
+                        imageWidth = Integer.parseInt(size[0]);
+                        imageHeight = Integer.parseInt(size[size.length - 1]);
+                    }
+                    default -> collect(Paths.get(args[i]), files);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            System.err.println("неверные аргументы: " + e + "\n" + USAGE);
+            return 2;
+        }
+        if (files.isEmpty()) {
+            System.err.println("не задано ни одного файла\n" + USAGE);
+            return 2;
+        }
+        if (imageDir != null) {
+            try {
+                Files.createDirectories(imageDir);
+            } catch (IOException e) {
+                System.err.println("не получилось создать папку для картинок: " + e);
+                return 2;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (Writer writer = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            // файлы решаются одновременно, а строки пишутся в порядке файлов
+            List<Future<ObjectNode>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Task.SolveMode fileMode = mode;
+                long fileLimit = timeLimit;
+                Path fileImage = imageDir == null ? null : imageDir.resolve(imageName(file));
+                int width = imageWidth, height = imageHeight;
+                results.add(executor.submit(() -> solveFile(file, fileMode, fileLimit, fileImage, width, height)));
+            }
+            boolean failed = false;
+            for (Future<ObjectNode> result : results) {
+                ObjectNode line = result.get();
+                failed |= line.has("error") || line.has("imageError");
+                writer.write(MAPPER.writeValueAsString(line));
+                writer.write('\n');
+            }
+            return failed ? 1 : 0;
+        } catch (IOException | ExecutionException e) {
+            System.err.println("ошибка записи результатов: " + e);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Добавить файл или все json-файлы папки
+     *
+     * @param path  путь к файлу или папке
+     * @param files список файлов
+     * @throws IOException ошибка чтения папки
+     */
+    private static void collect(Path path, List<Path> files) throws IOException {
+        if (!Files.isDirectory(path)) {
+            files.add(path);
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.filter(p -> Files.isRegularFile(p) && (p.toString().endsWith(".json") || BinaryTaskCodec.isBinary(p)))
+                    .sorted()
+                    .forEach(files::add);
+        }
+    }
+
+    /**
+     * Имя картинки для файла задачи
+     *
+     * @param file файл задачи
+     * @return имя картинки
+     */
+    private static String imageName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return (name.endsWith(".json") || BinaryTaskCodec.isBinary(file) ? name.substring(0, dot) : name) + ".png";
+    }
+
+    /**
+     * Решить одну задачу
+     *
+     * @param file      файл задачи
+     * @param mode      способ решения
+     * @param timeLimit лимит времени в миллисекундах, 0 - без лимита
+     * @return строка результата
+     */
+    static ObjectNode solveFile(Path file, Task.SolveMode mode, long timeLimit) {
+        return solveFile(file, mode, timeLimit, null, 0, 0);
+    }
+
+    /**
+     * Решить одну задачу и, если нужно, сохранить картинку решения
+     *
+     * @param file        файл задачи
+     * @param mode        способ решения
+     * @param timeLimit   лимит времени в миллисекундах, 0 - без лимита
+     * @param image       файл картинки, null - картинка не нужна
+     * @param imageWidth  ширина картинки
+     * @param imageHeight высота картинки
+     * @return строка результата
+     */
+    static ObjectNode solveFile(Path file, Task.SolveMode mode, long timeLimit,
+                                Path image, int imageWidth, int imageHeight) {
+        ObjectNode line = MAPPER.createObjectNode();
+        line.put("file", file.toString());
+        // ошибка в одном файле не должна прерывать весь пакет
+        try {
+            solveFile(line, file, mode, timeLimit, image, imageWidth, imageHeight);
+        } catch (RuntimeException e) {
+            line.put("error", "ошибка решения: " + e);
+        }
+        return line;
+    }
+
+    /**
+     * Решить одну задачу, дописывая поля в строку результата
+     *
+     * @param line        строка результата
+     * @param file        файл задачи
+     * @param mode        способ решения
+     * @param timeLimit   лимит времени в миллисекундах, 0 - без лимита
+     * @param image       файл картинки, null - картинка не нужна
+     * @param imageWidth  ширина картинки
+     * @param imageHeight высота картинки
+     */
+    private static void solveFile(ObjectNode line, Path file, Task.SolveMode mode, long timeLimit,
+                                  Path image, int imageWidth, int imageHeight) {
+        long start = System.nanoTime();
+        Task task;
+        try {
+            task = TaskJournal.read(file);
+        } catch (IOException e) {
+            line.put("error", "не получилось прочитать файл: " + e.getMessage());
+            return;
+        }
+        long read = System.nanoTime();
+        line.put("readMs", (read - start) / 1e6);
+        Triangle triangle = task.getTriangle();
+        PointStore points = task.getPoints();
+        line.put("points", points.size());
+        if (triangle == null) {
+            line.put("error", "треугольник не задан");
+            return;
+        }
+
+        SolveMonitor monitor = new SolveMonitor(timeLimit);
+        ChordAnswer answer = Task.compute(mode, triangle, points, null, 0, monitor, null);
+        line.put("solveMs", (System.nanoTime() - read) / 1e6);
+        line.put("mode", mode.name());
+        line.put("timedOut", monitor.isTimedOut());
+        line.put("found", answer.isFound());
+        if (image != null) {
+            // картинка рисуется так же, как решённая задача в окне
+            task.applyAnswer(answer);
+            long exportStart = System.nanoTime();
+            try {
+                ImageExporter.export(task, image, imageWidth, imageHeight);
+                line.put("image", image.toString());
+                line.put("imageMs", (System.nanoTime() - exportStart) / 1e6);
+            } catch (IOException | RuntimeException | LinkageError e) {
+                line.put("imageError", e.toString());
+            }
+        }
+        if (!answer.isFound())
+            return;
+        line.put("length", Math.sqrt(answer.lengthSq));
+        if (mode == Task.SolveMode.APPROXIMATE)
+            line.put("upperBound", Math.sqrt(answer.upperBoundSq));
+        // концы отрезка прямой внутри треугольника
+        ChordKernel kernel = new ChordKernel(triangle);
+        kernel.clip(points.getX(answer.i), points.getY(answer.i), points.getX(answer.j), points.getY(answer.j));
+        putPoint(line, "pos1", answer.i, points.getX(answer.i), points.getY(answer.i));
+        putPoint(line, "pos2", answer.j, points.getX(answer.j), points.getY(answer.j));
+        putPoint(line, "cross1", -1, kernel.x1, kernel.y1);
+        putPoint(line, "cross2", -1, kernel.x2, kernel.y2);
+    }
+
+    /**
+     * Записать точку в строку результата
+     *
+     * @param line  строка результата
+     * @param name  имя поля
+     * @param index индекс точки в задаче, -1, если это не точка задачи
+     * @param x     координата x
+     * @param y     координата y
+     */
+    private static void putPoint(ObjectNode line, String name, int index, double x, double y) {
+        ObjectNode point = line.putObject(name);
+        if (index >= 0)
+            point.put("index", index);
+        point.put("x", x);
+        point.put("y", y);
+    }
+
+    /**
+     * Главный метод пакетного решения
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private BatchSolver() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -0,0 +1,274 @@
+package app;
+
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import misc.Vector2d;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Двоичный формат задачи (файлы .tsk). Все числа хранятся в порядке
+ * little-endian:
+ * <pre>
+ * заголовок, HEADER_SIZE байт:
+ *   "TSKB", версия (int), флаги (int: 1 - есть треугольник, 2 - есть ответ)
+ *   ownCS: min.x, min.y, max.x, max.y
+ *   треугольник: pos1, pos2, pos3 (нули, если треугольника нет)
+ *   ответ: pos1, pos2, cross1, cross2, длина (нули, если ответа нет)
+ *   кол-во прямых (int), кол-во точек (int), выравнивание до 8 байт
+ * прямые: pos1.x, pos1.y, pos2.x, pos2.y для каждой
+ * точки: все x-координаты подряд, затем все y-координаты
+ * </pre>
+ * Точка занимает 16 байт против примерно 40 в JSON, а чтение не разбирает
+ * текст: файл отображается в память через FileChannel.map, и массивы
+ * координат копируются из отображения целиком, так что открытие файла
+ * на 100M точек упирается только в скорость диска.
+ */
+public class BinaryTaskCodec {
+    /**
+     * расширение файлов двоичного формата
+     */
+    public static final String EXTENSION = ".tsk";
+    /**
+     * подпись формата
+     */
+    private static final int MAGIC = 'T' | 'S' << 8 | 'K' << 16 | 'B' << 24;
+    /**
+     * версия формата
+     */
+    private static final int VERSION = 1;
+    /**
+     * флаг: в файле есть треугольник
+     */
+    private static final int HAS_TRIANGLE = 1;
+    /**
+     * флаг: в файле есть ответ
+     */
+    private static final int HAS_ANSWER = 2;
+    /**
+     * размер заголовка: 3 int, 19 double, 2 int и выравнивание
+     */
+    private static final int HEADER_SIZE = 176;
+    /**
+     * наибольший размер одного отображения файла, кратен 8
+     */
+    private static final int MAP_CHUNK = 1 << 30;
+    /**
+     * наибольшая длина массива
+     */
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+    /**
+     * размер буфера записи
+     */
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    /**
+     * Проверить, записан ли файл в двоичном формате
+     *
+     * @param file файл
+     * @return флаг, совпадает ли расширение с EXTENSION
+     */
+    public static boolean isBinary(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Прочитать задачу из файла
+     *
+     * @param file файл задачи
+     * @return задача
+     * @throws IOException ошибка чтения или формата
+     */
+    public static Task read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE)
+                throw new IOException("файл " + file + " короче заголовка");
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC)
+                throw new IOException("файл " + file + " не в двоичном формате задачи");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("неизвестная версия формата " + version);
+            int flags = header.getInt();
+            CoordinateSystem2d ownCS = new CoordinateSystem2d(getVector(header), getVector(header));
+            Vector2d[] vertices = {getVector(header), getVector(header), getVector(header)};
+            Vector2d[] answer = {getVector(header), getVector(header), getVector(header), getVector(header)};
+            double length = header.getDouble();
+            int lineCount = header.getInt();
+            int pointCount = header.getInt();
+            // координаты прямых и точек читаются в массивы, длина которых - int
+            if (lineCount < 0 || pointCount < 0 || lineCount > MAX_ARRAY / 4 || pointCount > MAX_ARRAY)
+                throw new IOException("файл " + file + " повреждён");
+            long linesSize = (long) lineCount * 4 * Double.BYTES;
+            if (fileSize != HEADER_SIZE + linesSize + (long) pointCount * 2 * Double.BYTES)
+                throw new IOException("размер файла " + file + " не совпадает с заголовком");
+
+            ArrayList<Line> lines = null;
+            if (lineCount > 0) {
+                double[] coords = new double[lineCount * 4];
+                readDoubles(channel, HEADER_SIZE, coords, coords.length);
+                lines = new ArrayList<>(lineCount);
+                for (int i = 0; i < coords.length; i += 4)
+                    lines.add(new Line(new Vector2d(coords[i], coords[i + 1]), new Vector2d(coords[i + 2], coords[i + 3])));
+            }
+            // массивы хранилища не бывают пустыми
+            double[] xs = new double[Math.max(pointCount, 1)];
+            double[] ys = new double[Math.max(pointCount, 1)];
+            long pointsStart = HEADER_SIZE + linesSize;
+            readDoubles(channel, pointsStart, xs, pointCount);
+            readDoubles(channel, pointsStart + (long) pointCount * Double.BYTES, ys, pointCount);
+
+            Task task = new Task(ownCS, PointStore.wrap(xs, ys, pointCount), lines);
+            if ((flags & HAS_TRIANGLE) != 0)
+                task.triangle = new Triangle(vertices[0], vertices[1], vertices[2]);
+            if ((flags & HAS_ANSWER) != 0)
+                task.restoreAnswer(answer[0], answer[1], answer[2], answer[3], length);
+            return task;
+        }
+    }
+
+    /**
+     * Прочитать вектор из буфера
+     *
+     * @param buffer буфер
+     * @return вектор
+     */
+    private static Vector2d getVector(ByteBuffer buffer) {
+        return new Vector2d(buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Скопировать числа из файла, отображая его в память кусками
+     * не больше MAP_CHUNK байт
+     *
+     * @param channel  канал файла
+     * @param position смещение первого числа в файле
+     * @param out      массив для чисел
+     * @param count    кол-во чисел
+     * @throws IOException ошибка отображения
+     */
+    private static void readDoubles(FileChannel channel, long position, double[] out, int count) throws IOException {
+        int chunk = MAP_CHUNK / Double.BYTES;
+        for (int from = 0; from < count; from += chunk) {
+            int n = Math.min(chunk, count - from);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position + (long) from * Double.BYTES, (long) n * Double.BYTES);
+            mapped.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(out, from, n);
+        }
+    }
+
+    /**
+     * Записать задачу в файл
+     *
+     * @param task задача
+     * @param file файл
+     * @throws IOException ошибка записи
+     */
+    public static void write(Task task, Path file) throws IOException {
+        PointStore points = task.getPoints();
+        ArrayList<Line> lines = task.getLines();
+        int lineCount = lines == null ? 0 : lines.size();
+        Triangle triangle = task.getTriangle();
+        // ответ рисуется, только если задача решена и отрезок найден
+        boolean hasAnswer = task.isSolved() && task.maxLenght != 0 && task.pos1_answer != null;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt((triangle != null ? HAS_TRIANGLE : 0) | (hasAnswer ? HAS_ANSWER : 0));
+        putVector(header, task.getOwnCS().getMin());
+        putVector(header, task.getOwnCS().getMax());
+        putVector(header, triangle != null ? triangle.getPos1() : null);
+        putVector(header, triangle != null ? triangle.getPos2() : null);
+        putVector(header, triangle != null ? triangle.getPos3() : null);
+        putVector(header, hasAnswer ? task.pos1_answer : null);
+        putVector(header, hasAnswer ? task.pos2_answer : null);
+        putVector(header, hasAnswer ? task.pos1_cross : null);
+        putVector(header, hasAnswer ? task.pos2_cross : null);
+        header.putDouble(hasAnswer ? task.maxLenght : 0);
+        header.putInt(lineCount);
+        header.putInt(points.size());
+        header.clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            // прямые пишутся прямо через буфер, без массива координат
+            buffer.clear();
+            for (int i = 0; i < lineCount; i++) {
+                if (buffer.remaining() < 4 * Double.BYTES) {
+                    buffer.flip();
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
+                Line line = lines.get(i);
+                putVector(buffer, line.getPos1());
+                putVector(buffer, line.getPos2());
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+            writeDoubles(channel, buffer, points.xs(), points.size());
+            writeDoubles(channel, buffer, points.ys(), points.size());
+        }
+    }
+
+    /**
+     * Записать вектор в буфер
+     *
+     * @param buffer буфер
+     * @param pos    вектор, null записывается нулями
+     */
+    private static void putVector(ByteBuffer buffer, Vector2d pos) {
+        buffer.putDouble(pos != null ? pos.x : 0);
+        buffer.putDouble(pos != null ? pos.y : 0);
+    }
+
+    /**
+     * Записать числа в файл через буфер
+     *
+     * @param channel канал файла
+     * @param buffer  буфер с порядком little-endian
+     * @param values  числа
+     * @param count   кол-во чисел
+     * @throws IOException ошибка записи
+     */
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values, int count) throws IOException {
+        int chunk = buffer.capacity() / Double.BYTES;
+        for (int from = 0; from < count; from += chunk) {
+            int n = Math.min(chunk, count - from);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, from, n);
+            buffer.limit(n * Double.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Записать буфер в канал целиком
+     *
+     * @param channel канал
+     * @param buffer  буфер
+     * @throws IOException ошибка записи
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private BinaryTaskCodec() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
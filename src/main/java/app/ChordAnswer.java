@@ -0,0 +1,109 @@
+package app;
+
+/**
+ * Лучший найденный отрезок внутри треугольника: квадрат его длины
+ * и индексы двух точек, через которые проходит прямая.
+ * Из отрезков одинаковой длины лучшим считается тот, чья пара (i, j)
+ * раньше в лексикографическом порядке - именно его находит
+ * последовательный перебор со строгим сравнением, поэтому результаты
+ * разных способов решения совпадают в точности.
+ */
+public class ChordAnswer {
+    /**
+     * квадрат длины отрезка
+     */
+    public double lengthSq;
+    /**
+     * индекс первой точки, -1, если ответа нет
+     */
+    public int i = -1;
+    /**
+     * индекс второй точки, -1, если ответа нет
+     */
+    public int j = -1;
+    /**
+     * кол-во проверенных пар
+     */
+    public long pairs;
+    /**
+     * квадрат верхней оценки оптимальной длины у приближённого решения,
+     * 0, если оценка не считалась
+     */
+    public double upperBoundSq;
+
+    /**
+     * Предложить отрезок в ответ
+     *
+     * @param lengthSq квадрат длины отрезка
+     * @param i        индекс первой точки
+     * @param j        индекс второй точки
+     * @return флаг, стал ли отрезок новым ответом
+     */
+    public boolean offer(double lengthSq, int i, int j) {
+        if (lengthSq > this.lengthSq || (lengthSq == this.lengthSq && lengthSq > 0 && before(i, j))) {
+            this.lengthSq = lengthSq;
+            this.i = i;
+            this.j = j;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Объединить с ответом другой части перебора
+     *
+     * @param other ответ другой части
+     * @return текущий ответ
+     */
+    public ChordAnswer merge(ChordAnswer other) {
+        if (other.i >= 0)
+            offer(other.lengthSq, other.i, other.j);
+        pairs += other.pairs;
+        return this;
+    }
+
+    /**
+     * Получить копию ответа
+     *
+     * @return копия
+     */
+    public ChordAnswer copy() {
+        ChordAnswer copy = new ChordAnswer();
+        copy.lengthSq = lengthSq;
+        copy.i = i;
+        copy.j = j;
+        copy.pairs = pairs;
+        copy.upperBoundSq = upperBoundSq;
+        return copy;
+    }
+
+    /**
+     * Проверить, есть ли ответ
+     *
+     * @return флаг
+     */
+    public boolean isFound() {
+        return i >= 0;
+    }
+
+    /**
+     * Проверить, идёт ли пара (i, j) раньше текущего ответа
+     *
+     * @param i индекс первой точки
+     * @param j индекс второй точки
+     * @return флаг
+     */
+    private boolean before(int i, int j) {
+        return this.i < 0 || i < this.i || (i == this.i && j < this.j);
+    }
+
+    /**
+     * Строковое представление объекта
+     *
+     * @return строковое представление объекта
+     */
+    @Override
+    public String toString() {
+        return "ChordAnswer{" + "lenght=" + Math.sqrt(lengthSq) + ", i=" + i + ", j=" + j + ", pairs=" + pairs + '}';
+    }
+}
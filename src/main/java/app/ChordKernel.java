@@ -0,0 +1,375 @@
+package app;
+
+/**
+ * Отсечение прямой треугольником на примитивах.
+ * Метод clip - параметрическое отсечение Кируса-Бека: прямая задаётся
+ * двумя точками P и Q как P + t(Q - P), каждая сторона треугольника -
+ * полуплоскостью n * X + d >= 0 с нормалью внутрь; концы найденного
+ * отрезка кладутся в поля x1, y1, x2, y2.
+ * Для перебора пар есть быстрый путь: setAnchor фиксирует точку P,
+ * а lengthSq считает квадрат длины отрезка без ветвлений и без корня,
+ * деление выполняется только для отрезков длиннее заданного порога.
+ * Объект ничего не создаёт при вызовах и переиспользуется для всех пар,
+ * но его нельзя использовать из нескольких потоков одновременно.
+ */
+public class ChordKernel {
+    /**
+     * x-компоненты внутренних нормалей сторон
+     */
+    private final double n0x, n1x, n2x;
+    /**
+     * y-компоненты внутренних нормалей сторон
+     */
+    private final double n0y, n1y, n2y;
+    /**
+     * свободные члены уравнений сторон
+     */
+    private final double d0, d1, d2;
+    /**
+     * флаг вырожденного треугольника (все вершины на одной прямой)
+     */
+    private final boolean degenerate;
+    /**
+     * вершины треугольника
+     */
+    private final double ax, ay, bx, by, cx, cy;
+    /**
+     * длина наибольшей стороны
+     */
+    private final double longest;
+    /**
+     * обратные длины нормалей сторон
+     */
+    private final double inv0, inv1, inv2;
+    /**
+     * значения уравнений сторон BC, CA и AB в противолежащих им вершинах A, B и C
+     */
+    private final double hA, hB, hC;
+    /**
+     * опорная точка
+     */
+    private double anchorX, anchorY;
+    /**
+     * вершины треугольника относительно опорной точки
+     */
+    private double apx, apy, bpx, bpy, cpx, cpy;
+    /**
+     * Наборы масок знаков вершин, при которых "одинокой" (лежащей по
+     * другую сторону прямой, чем две остальные) оказывается вершина A, B или C:
+     * бит m выставлен, если при маске m одинока эта вершина.
+     * В маске бит k выставлен, если k-я вершина лежит слева от прямой,
+     * маски 0 и 7 - прямая не пересекает треугольник.
+     */
+    private static final int LONE_A = 1 << 1 | 1 << 6;
+    private static final int LONE_B = 1 << 2 | 1 << 5;
+    private static final int LONE_C = 1 << 3 | 1 << 4;
+    /**
+     * запас при отбрасывании отрезков без деления, чтобы погрешность
+     * умножения не отбросила отрезок, который после деления оказался бы длиннее порога
+     */
+    private static final double THRESHOLD_SLACK = 1 - 1e-9;
+    /**
+     * концы последнего найденного отрезка внутри треугольника
+     */
+    public double x1, y1, x2, y2;
+
+    /**
+     * Конструктор ядра по треугольнику
+     *
+     * @param triangle треугольник
+     */
+    public ChordKernel(Triangle triangle) {
+        this(triangle.pos1.x, triangle.pos1.y, triangle.pos2.x, triangle.pos2.y, triangle.pos3.x, triangle.pos3.y);
+    }
+
+    /**
+     * Конструктор ядра по вершинам треугольника
+     *
+     * @param ax x-координата вершины A
+     * @param ay y-координата вершины A
+     * @param bx x-координата вершины B
+     * @param by y-координата вершины B
+     * @param cx x-координата вершины C
+     * @param cy y-координата вершины C
+     */
+    public ChordKernel(double ax, double ay, double bx, double by, double cx, double cy) {
+        // удвоенная ориентированная площадь, её знак задаёт обход вершин
+        this.ax = ax;
+        this.ay = ay;
+        this.bx = bx;
+        this.by = by;
+        this.cx = cx;
+        this.cy = cy;
+        double area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        degenerate = area == 0;
+        // при обходе против часовой стрелки нормаль (-dy, dx) смотрит внутрь
+        double s = area > 0 ? 1 : -1;
+        // сторона AB
+        n0x = -(by - ay) * s;
+        n0y = (bx - ax) * s;
+        d0 = -(n0x * ax + n0y * ay);
+        // сторона BC
+        n1x = -(cy - by) * s;
+        n1y = (cx - bx) * s;
+        d1 = -(n1x * bx + n1y * by);
+        // сторона CA
+        n2x = -(ay - cy) * s;
+        n2y = (ax - cx) * s;
+        d2 = -(n2x * cx + n2y * cy);
+        hA = n1x * ax + n1y * ay + d1;
+        hB = n2x * bx + n2y * by + d2;
+        hC = n0x * cx + n0y * cy + d0;
+        inv0 = 1 / Math.hypot(n0x, n0y);
+        inv1 = 1 / Math.hypot(n1x, n1y);
+        inv2 = 1 / Math.hypot(n2x, n2y);
+        longest = Math.sqrt(Math.max(distanceSq(ax, ay, bx, by), Math.max(distanceSq(bx, by, cx, cy), distanceSq(cx, cy, ax, ay))));
+    }
+
+    /**
+     * Получить длину наибольшей стороны: ни один отрезок внутри
+     * треугольника не длиннее её
+     *
+     * @return длина
+     */
+    public double getLongest() {
+        return longest;
+    }
+
+    /**
+     * Верхняя оценка длины отрезка внутри треугольника у любой прямой,
+     * проходящей через точку P.
+     * Если P внутри треугольника, оценка точная: пока прямая пересекает
+     * одни и те же две стороны, длина отрезка - сумма расстояний от P до них
+     * вдоль прямой, каждое вида d / sin(угла), то есть выпуклая функция
+     * угла, и наибольшее значение достигается на краю, когда прямая проходит
+     * через вершину. Прямая из вершины V через P выходит на противолежащей
+     * стороне в точке V + t (P - V), где t = h / (h - e), h и e - значения
+     * уравнения этой стороны в V и в P, поэтому длина такого отрезка
+     * считается без отсечения. Если P снаружи - это разность расстояний до дальней
+     * вершины и до треугольника (оба конца отрезка лежат на луче из P между
+     * ними), а вместо расстояния до треугольника берётся наибольшее
+     * расстояние до прямых сторон, от которых P лежит снаружи: оно не больше
+     * настоящего и считается без деления
+     *
+     * @param px x-координата точки P
+     * @param py y-координата точки P
+     * @return оценка
+     */
+    public double bound(double px, double py) {
+        double e0 = n0x * px + n0y * py + d0;
+        double e1 = n1x * px + n1y * py + d1;
+        double e2 = n2x * px + n2y * py + d2;
+        double near = Math.max(-e0 * inv0, Math.max(-e1 * inv1, -e2 * inv2));
+        if (degenerate)
+            return longest;
+        if (near <= 0) {
+            // P в вершине: отрезок через неё не длиннее наибольшей стороны
+            if (e1 >= hA || e2 >= hB || e0 >= hC)
+                return longest;
+            double tA = hA / (hA - e1);
+            double tB = hB / (hB - e2);
+            double tC = hC / (hC - e0);
+            return Math.sqrt(Math.max(tA * tA * distanceSq(px, py, ax, ay),
+                    Math.max(tB * tB * distanceSq(px, py, bx, by), tC * tC * distanceSq(px, py, cx, cy))));
+        }
+        double far = Math.max(distanceSq(px, py, ax, ay), Math.max(distanceSq(px, py, bx, by), distanceSq(px, py, cx, cy)));
+        return Math.min(longest, Math.sqrt(far) - near);
+    }
+
+    /**
+     * Найти угол, под которым из внешней точки P виден треугольник: прямая
+     * через P пересекает треугольник, только если её направление лежит
+     * между лучами-границами l и r или в противоположном угле, то есть
+     * для направления D выполнено (l x D) (D x r) >= 0
+     *
+     * @param px     x-координата точки P
+     * @param py     y-координата точки P
+     * @param window массив, куда кладутся направления лучей-границ {lx, ly, rx, ry}
+     *               (от l к r против часовой стрелки)
+     * @return false, если P внутри треугольника или угол найти не удалось
+     */
+    public boolean window(double px, double py, double[] window) {
+        if (contains(px, py))
+            return false;
+        double[] vertices = {ax - px, ay - py, bx - px, by - py, cx - px, cy - py};
+        for (int l = 0; l < 3; l++) {
+            for (int r = 0; r < 3; r++) {
+                if (l == r)
+                    continue;
+                int m = 3 - l - r;
+                double lx = vertices[2 * l], ly = vertices[2 * l + 1];
+                double rx = vertices[2 * r], ry = vertices[2 * r + 1];
+                double mx = vertices[2 * m], my = vertices[2 * m + 1];
+                if (lx * ry - ly * rx >= 0 && lx * my - ly * mx >= 0 && mx * ry - my * rx >= 0) {
+                    window[0] = lx;
+                    window[1] = ly;
+                    window[2] = rx;
+                    window[3] = ry;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверить, лежит ли точка внутри треугольника или на его границе
+     *
+     * @param px x-координата точки
+     * @param py y-координата точки
+     * @return флаг
+     */
+    public boolean contains(double px, double py) {
+        return !degenerate
+                && n0x * px + n0y * py + d0 >= 0
+                && n1x * px + n1y * py + d1 >= 0
+                && n2x * px + n2y * py + d2 >= 0;
+    }
+
+    /**
+     * Зафиксировать опорную точку P для lengthSq
+     *
+     * @param px x-координата точки P
+     * @param py y-координата точки P
+     */
+    public void setAnchor(double px, double py) {
+        anchorX = px;
+        anchorY = py;
+        apx = ax - px;
+        apy = ay - py;
+        bpx = bx - px;
+        bpy = by - py;
+        cpx = cx - px;
+        cpy = cy - py;
+    }
+
+    /**
+     * Квадрат длины отрезка внутри треугольника прямой, проходящей через
+     * опорную точку P (см. setAnchor) и точку Q.
+     * Для направления D = Q - P и каждой вершины V считаются
+     * s = D x (V - P) (с какой стороны прямой лежит вершина) и
+     * c = D * (V - P) (проекция вершины на прямую). Прямая пересекает
+     * две стороны, выходящие из "одинокой" вершины L, в точках с проекциями
+     * c_L + s_L (c_k - c_L) / (s_L - s_k), откуда длина отрезка равна
+     * |s_L ((c_2 - c_L)(s_L - s_1) - (c_1 - c_L)(s_L - s_2))| / (|(s_L - s_1)(s_L - s_2)| |D|).
+     * Все три варианта L считаются сразу и смешиваются весами,
+     * чтобы в цикле не было непредсказуемых переходов.
+     *
+     * @param qx x-координата точки Q
+     * @param qy y-координата точки Q
+     * @return квадрат длины отрезка, 0, если прямая не пересекает треугольник
+     */
+    public double lengthSq(double qx, double qy) {
+        return lengthSq(qx, qy, 0);
+    }
+
+    /**
+     * Квадрат длины отрезка внутри треугольника прямой через опорную точку
+     * и точку Q, если он может оказаться больше порога.
+     * Отрезки, заведомо не длиннее порога, отбрасываются сравнением
+     * без деления, поэтому при переборе с растущим лучшим значением
+     * деление почти не выполняется. Если результат больше порога,
+     * он в точности равен lengthSq(qx, qy).
+     *
+     * @param qx        x-координата точки Q
+     * @param qy        y-координата точки Q
+     * @param threshold порог (квадрат длины)
+     * @return квадрат длины отрезка или 0, если он заведомо не больше порога
+     */
+    public double lengthSq(double qx, double qy, double threshold) {
+        double dx = qx - anchorX;
+        double dy = qy - anchorY;
+        // с какой стороны прямой лежат вершины
+        double sA = dx * apy - dy * apx;
+        double sB = dx * bpy - dy * bpx;
+        double sC = dx * cpy - dy * cpx;
+        // проекции вершин на прямую
+        double cA = dx * apx + dy * apy;
+        double cB = dx * bpx + dy * bpy;
+        double cC = dx * cpx + dy * cpy;
+        int mask = (sA > 0 ? 1 : 0) | (sB > 0 ? 2 : 0) | (sC > 0 ? 4 : 0);
+        double eAB = sA - sB;
+        double eBC = sB - sC;
+        double eCA = sC - sA;
+        // числители и знаменатели для каждого выбора одинокой вершины
+        double numA = sA * ((cC - cA) * eAB + (cB - cA) * eCA);
+        double denA = -eAB * eCA;
+        double numB = sB * ((cA - cB) * eBC + (cC - cB) * eAB);
+        double denB = -eBC * eAB;
+        double numC = sC * ((cB - cC) * eCA + (cA - cC) * eBC);
+        double denC = -eCA * eBC;
+        double wA = (LONE_A >>> mask) & 1;
+        double wB = (LONE_B >>> mask) & 1;
+        double wC = (LONE_C >>> mask) & 1;
+        double num = wA * numA + wB * numB + wC * numC;
+        double den = wA * denA + wB * denB + wC * denC;
+        double q = den * den * (dx * dx + dy * dy);
+        double numSq = num * num;
+        // при numSq > 0 знаменатель q тоже положителен
+        if (!(numSq > threshold * q * THRESHOLD_SLACK))
+            return 0;
+        return numSq / q;
+    }
+
+    /**
+     * Отсечь прямую, проходящую через точки P и Q, треугольником
+     *
+     * @param px x-координата точки P
+     * @param py y-координата точки P
+     * @param qx x-координата точки Q
+     * @param qy y-координата точки Q
+     * @return длина отрезка прямой внутри треугольника, 0, если прямая его не пересекает
+     */
+    public double clip(double px, double py, double qx, double qy) {
+        double dx = qx - px;
+        double dy = qy - py;
+        // совпадающие точки не задают прямую
+        if (degenerate || (dx == 0 && dy == 0))
+            return 0;
+        // допустимый диапазон параметра t
+        double tMin = Double.NEGATIVE_INFINITY;
+        double tMax = Double.POSITIVE_INFINITY;
+
+        // сторона AB
+        double num = n0x * px + n0y * py + d0;
+        double den = n0x * dx + n0y * dy;
+        if (den > 0) tMin = Math.max(tMin, -num / den);
+        else if (den < 0) tMax = Math.min(tMax, -num / den);
+        else if (num < 0) return 0;
+        // сторона BC
+        num = n1x * px + n1y * py + d1;
+        den = n1x * dx + n1y * dy;
+        if (den > 0) tMin = Math.max(tMin, -num / den);
+        else if (den < 0) tMax = Math.min(tMax, -num / den);
+        else if (num < 0) return 0;
+        // сторона CA
+        num = n2x * px + n2y * py + d2;
+        den = n2x * dx + n2y * dy;
+        if (den > 0) tMin = Math.max(tMin, -num / den);
+        else if (den < 0) tMax = Math.min(tMax, -num / den);
+        else if (num < 0) return 0;
+
+        // прямая не заходит внутрь треугольника
+        if (!(tMin < tMax))
+            return 0;
+
+        x1 = px + tMin * dx;
+        y1 = py + tMin * dy;
+        x2 = px + tMax * dx;
+        y2 = py + tMax * dy;
+        return (tMax - tMin) * Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Квадрат расстояния между точками
+     *
+     * @param x1 x-координата первой точки
+     * @param y1 y-координата первой точки
+     * @param x2 x-координата второй точки
+     * @param y2 y-координата второй точки
+     * @return квадрат расстояния
+     */
+    private static double distanceSq(double x1, double y1, double x2, double y2) {
+        return (x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1);
+    }
+}
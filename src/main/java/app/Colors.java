@@ -44,6 +44,22 @@ public class Colors {
      * Цвет разности
      */
     public static final int SUBTRACTED_COLOR = Misc.getColor(200, 255, 255, 0);
+    /**
+     * Цвет карты плотности там, где точек мало
+     */
+    public static final int DENSITY_LOW_COLOR = Misc.getColor(96, 0, 0, 0);
+    /**
+     * Цвет карты плотности там, где точек больше всего
+     */
+    public static final int DENSITY_HIGH_COLOR = Misc.getColor(255, 255, 200, 0);
+    /**
+     * Цвет подложки оверлея статистики кадров
+     */
+    public static final int HUD_BACKGROUND_COLOR = Misc.getColor(200, 0, 0, 0);
+    /**
+     * Цвет текста оверлея статистики кадров
+     */
+    public static final int HUD_TEXT_COLOR = Misc.getColor(255, 255, 255, 255);
 
     /**
      * Запрещённый конструктор
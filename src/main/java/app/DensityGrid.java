@@ -0,0 +1,200 @@
+package app;
+
+import io.github.humbleui.skija.Canvas;
+import io.github.humbleui.skija.ColorAlphaType;
+import io.github.humbleui.skija.ColorType;
+import io.github.humbleui.skija.Image;
+import io.github.humbleui.skija.ImageInfo;
+import misc.CoordinateSystem2d;
+import misc.CoordinateSystem2i;
+import misc.PointGrid;
+import misc.PointStore;
+import misc.Transform2d;
+
+import java.util.Arrays;
+
+import static app.Colors.DENSITY_HIGH_COLOR;
+import static app.Colors.DENSITY_LOW_COLOR;
+
+/**
+ * Карта плотности точек: кол-во точек в каждом пикселе окна, нарисованное
+ * одной картинкой. Точки только добавляются в конец хранилища, поэтому
+ * при добавлении учитываются лишь новые точки; сетка строится заново
+ * по видимым точкам только при изменении СК окна, видимой области
+ * или после сброса.
+ */
+public class DensityGrid implements AutoCloseable {
+    /**
+     * кол-во точек в каждом пикселе, строка за строкой
+     */
+    private int[] counts = new int[0];
+    /**
+     * наибольшее кол-во точек в одном пикселе
+     */
+    private int maxCount;
+    /**
+     * кол-во уже учтённых точек хранилища
+     */
+    private int binned;
+    /**
+     * СК окна, для которой построена сетка
+     */
+    private CoordinateSystem2i windowCS;
+    /**
+     * версия видимой области, для которой построена сетка
+     */
+    private int viewVersion;
+    /**
+     * преобразование из видимой области в СК окна, для которого построена сетка
+     */
+    private Transform2d transform;
+    /**
+     * картинка сетки, null, если её нужно построить заново
+     */
+    private Image image;
+    /**
+     * цвета пикселей картинки, RGBA с умноженной на прозрачность яркостью
+     */
+    private byte[] pixels = new byte[0];
+
+    /**
+     * Забыть учтённые точки: после очистки хранилища сетка строится заново
+     */
+    public void reset() {
+        binned = 0;
+        maxCount = 0;
+        windowCS = null;
+        closeImage();
+    }
+
+    /**
+     * Нарисовать карту плотности, учтя добавленные с прошлого кадра точки
+     *
+     * @param canvas      область рисования
+     * @param windowCS    СК окна
+     * @param viewCS      видимая область задачи
+     * @param viewVersion версия видимой области
+     * @param points      точки
+     * @param index       сетка для поиска видимых точек
+     */
+    public void render(Canvas canvas, CoordinateSystem2i windowCS, CoordinateSystem2d viewCS, int viewVersion,
+                       PointStore points, PointGrid index) {
+        int width = windowCS.getSize().x;
+        int height = windowCS.getSize().y;
+        if (width <= 0 || height <= 0)
+            return;
+        if (!windowCS.equals(this.windowCS) || viewVersion != this.viewVersion || points.size() < binned) {
+            if (counts.length != width * height)
+                counts = new int[width * height];
+            else
+                Arrays.fill(counts, 0);
+            maxCount = 0;
+            transform = windowCS.getTransform(viewCS);
+            // заново учитываем только видимые точки
+            int visible = index.query(viewCS.getMin().x, viewCS.getMin().y, viewCS.getMax().x, viewCS.getMax().y);
+            int[] indices = index.getResult();
+            for (int k = 0; k < visible; k++)
+                bin(points.getX(indices[k]), points.getY(indices[k]), windowCS, width, height);
+            binned = points.size();
+            this.windowCS = windowCS;
+            this.viewVersion = viewVersion;
+            closeImage();
+        }
+        if (points.size() > binned) {
+            for (int i = binned; i < points.size(); i++)
+                bin(points.getX(i), points.getY(i), windowCS, width, height);
+            binned = points.size();
+            closeImage();
+        }
+        if (image == null)
+            image = makeImage(width, height);
+        canvas.drawImage(image, windowCS.getMin().x, windowCS.getMin().y);
+    }
+
+    /**
+     * Добавить точку в сетку
+     *
+     * @param x        координата x
+     * @param y        координата y
+     * @param windowCS СК окна
+     * @param width    ширина сетки
+     * @param height   высота сетки
+     */
+    private void bin(double x, double y, CoordinateSystem2i windowCS, int width, int height) {
+        // то же преобразование, что и в CoordinateSystem2i.getCoords, относительно угла окна
+        double cellX = Math.floor(transform.windowX(x) - windowCS.getMin().x);
+        double cellY = Math.floor(transform.windowY(y) - windowCS.getMin().y);
+        // точки вне окна не рисуются
+        if (!(cellX >= 0 && cellY >= 0 && cellX < width && cellY < height))
+            return;
+        int count = ++counts[(int) cellY * width + (int) cellX];
+        if (count > maxCount)
+            maxCount = count;
+    }
+
+    /**
+     * Построить картинку: цвет пикселя плавно меняется от DENSITY_LOW_COLOR
+     * до DENSITY_HIGH_COLOR по логарифму кол-ва точек, пустые пиксели прозрачны
+     *
+     * @param width  ширина
+     * @param height высота
+     * @return картинка
+     */
+    private Image makeImage(int width, int height) {
+        if (pixels.length != width * height * 4)
+            pixels = new byte[width * height * 4];
+        // цвета для каждого кол-ва точек считаются один раз
+        int levels = Math.min(maxCount, 1 << 16);
+        int[] palette = new int[levels + 1];
+        double scale = levels > 1 ? 1 / Math.log(levels) : 0;
+        for (int c = 1; c <= levels; c++)
+            palette[c] = mix(DENSITY_LOW_COLOR, DENSITY_HIGH_COLOR, Math.log(c) * scale);
+        for (int k = 0; k < counts.length; k++) {
+            int color = palette[Math.min(counts[k], levels)];
+            int alpha = color >>> 24;
+            int p = k * 4;
+            pixels[p] = (byte) (((color >> 16) & 0xFF) * alpha / 255);
+            pixels[p + 1] = (byte) (((color >> 8) & 0xFF) * alpha / 255);
+            pixels[p + 2] = (byte) ((color & 0xFF) * alpha / 255);
+            pixels[p + 3] = (byte) alpha;
+        }
+        ImageInfo info = new ImageInfo(width, height, ColorType.RGBA_8888, ColorAlphaType.PREMUL);
+        return Image.makeRaster(info, pixels, width * 4L);
+    }
+
+    /**
+     * Смешать два цвета
+     *
+     * @param from первый цвет
+     * @param to   второй цвет
+     * @param t    доля второго цвета от 0 до 1
+     * @return цвет
+     */
+    private static int mix(int from, int to, double t) {
+        int color = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = (from >>> shift) & 0xFF;
+            int b = (to >>> shift) & 0xFF;
+            color |= ((int) Math.round(a + (b - a) * t) & 0xFF) << shift;
+        }
+        return color;
+    }
+
+    /**
+     * Освободить картинку
+     */
+    private void closeImage() {
+        if (image != null) {
+            image.close();
+            image = null;
+        }
+    }
+
+    /**
+     * Освободить ресурсы сетки
+     */
+    @Override
+    public void close() {
+        closeImage();
+    }
+}
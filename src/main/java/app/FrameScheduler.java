@@ -0,0 +1,69 @@
+package app;
+
+import io.github.humbleui.jwm.App;
+import io.github.humbleui.jwm.Window;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Планировщик кадров: окно перерисовывается, только когда что-то
+ * изменилось (задача, наведение мыши, лог, мигание курсора, размер окна).
+ * Изменения, пришедшие до обработки запроса в потоке интерфейса, сливаются
+ * в один запрос, а несколько запросов до начала кадра JWM сам сливает
+ * в один кадр, поэтому в простое приложение не рисует ничего.
+ */
+public class FrameScheduler {
+    /**
+     * окно, null, пока окно не создано или после его закрытия
+     */
+    private static volatile Window window;
+    /**
+     * флаг, что запрос кадра уже отправлен в поток интерфейса
+     */
+    private static final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * Задать окно, которое нужно перерисовывать
+     *
+     * @param window окно, null - больше ничего не перерисовывать
+     */
+    public static void setWindow(Window window) {
+        FrameScheduler.window = window;
+        pending.set(false);
+    }
+
+    /**
+     * Сообщить, что окно нужно перерисовать. Можно вызывать из любого потока;
+     * повторные вызовы, пока запрос не обработан, ничего не делают
+     */
+    public static void invalidate() {
+        // без окна (например, в тестах и пакетном решении) рисовать нечего
+        if (window == null || !pending.compareAndSet(false, true))
+            return;
+        App.runOnUIThread(() -> {
+            pending.set(false);
+            Window current = window;
+            if (current != null)
+                current.requestFrame();
+        });
+    }
+
+    /**
+     * Выполнить работу в потоке интерфейса. Можно вызывать из любого потока;
+     * без окна (в тестах и пакетном решении) потока интерфейса нет,
+     * и работа отбрасывается
+     *
+     * @param job работа
+     */
+    public static void runOnUIThread(Runnable job) {
+        if (window != null)
+            App.runOnUIThread(job);
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private FrameScheduler() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
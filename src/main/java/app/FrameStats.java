@@ -0,0 +1,369 @@
+package app;
+
+import controls.TextCache;
+import io.github.humbleui.skija.Canvas;
+import io.github.humbleui.skija.FontMetrics;
+import io.github.humbleui.skija.Paint;
+import io.github.humbleui.skija.Rect;
+import misc.CoordinateSystem2i;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static app.Colors.HUD_BACKGROUND_COLOR;
+import static app.Colors.HUD_TEXT_COLOR;
+import static app.Fonts.FONT12;
+
+/**
+ * Статистика кадров: время кадра, время рисования каждой панели, время
+ * обработки событий, кол-во нарисованных и отброшенных точек и выделение
+ * памяти потоком интерфейса. Каждый кадр записывает несколько чисел
+ * в кольцевые буферы на CAPACITY последних кадров; процентили, скорость
+ * выделения памяти по всей JVM и паузы сборщика мусора считаются только
+ * при рисовании оверлея, поэтому, пока оверлей скрыт, сбор почти ничего
+ * не стоит. Используется только из потока интерфейса.
+ */
+public class FrameStats {
+    /**
+     * Измеряемые части кадра
+     */
+    public enum Section {
+        /**
+         * обработка событий с прошлого кадра
+         */
+        EVENTS("события"),
+        /**
+         * панель рисования
+         */
+        RENDERING("PanelRendering"),
+        /**
+         * панель управления
+         */
+        CONTROL("PanelControl"),
+        /**
+         * панель лога
+         */
+        LOG("PanelLog"),
+        /**
+         * панель помощи
+         */
+        HELP("PanelHelp");
+
+        /**
+         * название части для оверлея
+         */
+        private final String title;
+
+        /**
+         * Конструктор части кадра
+         *
+         * @param title название для оверлея
+         */
+        Section(String title) {
+            this.title = title;
+        }
+    }
+
+    /**
+     * кол-во кадров в истории
+     */
+    public static final int CAPACITY = 256;
+    /**
+     * как часто обновляются данные JVM в оверлее, нс
+     */
+    private static final long JVM_SAMPLE_PERIOD = 1_000_000_000L;
+    /**
+     * отступ текста оверлея
+     */
+    private static final int HUD_PADDING = 8;
+    /**
+     * ширина оверлея
+     */
+    private static final int HUD_WIDTH = 320;
+    /**
+     * время каждого кадра, нс
+     */
+    private static final long[] frameTimes = new long[CAPACITY];
+    /**
+     * время каждой части каждого кадра, нс
+     */
+    private static final long[][] sectionTimes = new long[Section.values().length][CAPACITY];
+    /**
+     * байт, выделенных потоком интерфейса за кадр
+     */
+    private static final long[] allocated = new long[CAPACITY];
+    /**
+     * кол-во нарисованных точек в каждом кадре
+     */
+    private static final int[] pointsDrawn = new int[CAPACITY];
+    /**
+     * кол-во всех точек задачи в каждом кадре
+     */
+    private static final int[] pointsTotal = new int[CAPACITY];
+    /**
+     * кол-во записанных кадров
+     */
+    private static long frames;
+    /**
+     * время обработки событий с прошлого кадра, нс
+     */
+    private static long pendingEvents;
+    /**
+     * начало текущего кадра, нс
+     */
+    private static long frameStart;
+    /**
+     * байт, выделенных потоком интерфейса к началу текущего кадра
+     */
+    private static long allocatedStart;
+    /**
+     * флаг, показан ли оверлей
+     */
+    private static boolean visible;
+    /**
+     * счётчик выделенной памяти потоков, null, если JVM его не поддерживает
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    /**
+     * время последнего замера данных JVM, нс
+     */
+    private static long jvmSampleTime;
+    /**
+     * байт, выделенных живыми потоками к последнему замеру
+     */
+    private static long jvmAllocated;
+    /**
+     * кол-во сборок мусора к последнему замеру
+     */
+    private static long gcCount;
+    /**
+     * время сборок мусора к последнему замеру, мс
+     */
+    private static long gcTime;
+    /**
+     * строки оверлея о JVM, обновляются раз в JVM_SAMPLE_PERIOD
+     */
+    private static String jvmLine = "", gcLine = "";
+    /**
+     * буфер для сортировки времён кадров
+     */
+    private static final long[] sorted = new long[CAPACITY];
+
+    /**
+     * Показать или скрыть оверлей
+     */
+    public static void toggle() {
+        visible = !visible;
+        jvmSampleTime = 0;
+    }
+
+    /**
+     * Проверить, показан ли оверлей
+     *
+     * @return флаг
+     */
+    public static boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Учесть время обработки события
+     *
+     * @param nanos время, нс
+     */
+    public static void addEventTime(long nanos) {
+        pendingEvents += nanos;
+    }
+
+    /**
+     * Начать кадр
+     */
+    public static void beginFrame() {
+        int slot = (int) (frames % CAPACITY);
+        for (long[] times : sectionTimes)
+            times[slot] = 0;
+        sectionTimes[Section.EVENTS.ordinal()][slot] = pendingEvents;
+        pendingEvents = 0;
+        pointsDrawn[slot] = 0;
+        pointsTotal[slot] = 0;
+        allocatedStart = threadAllocated();
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Учесть время части кадра
+     *
+     * @param section часть кадра
+     * @param start   начало части, значение System.nanoTime()
+     */
+    public static void endSection(Section section, long start) {
+        sectionTimes[section.ordinal()][(int) (frames % CAPACITY)] += System.nanoTime() - start;
+    }
+
+    /**
+     * Учесть точки, нарисованные в кадре
+     *
+     * @param drawn кол-во нарисованных точек
+     * @param total кол-во всех точек
+     */
+    public static void recordPoints(int drawn, int total) {
+        int slot = (int) (frames % CAPACITY);
+        pointsDrawn[slot] += drawn;
+        pointsTotal[slot] += total;
+    }
+
+    /**
+     * Закончить кадр
+     */
+    public static void endFrame() {
+        int slot = (int) (frames % CAPACITY);
+        frameTimes[slot] = System.nanoTime() - frameStart;
+        allocated[slot] = threadAllocated() - allocatedStart;
+        frames++;
+    }
+
+    /**
+     * Нарисовать оверлей в левом верхнем углу окна
+     *
+     * @param canvas   область рисования
+     * @param windowCS СК окна
+     */
+    public static void render(Canvas canvas, CoordinateSystem2i windowCS) {
+        if (!visible)
+            return;
+        List<String> lines = report();
+        FontMetrics metrics = TextCache.metrics(FONT12);
+        float lineHeight = metrics.getCapHeight() + 8;
+        float x = windowCS.getMin().x + HUD_PADDING, y = windowCS.getMin().y + HUD_PADDING;
+        canvas.drawRect(Rect.makeXYWH(x, y, HUD_WIDTH, lineHeight * lines.size() + HUD_PADDING * 2),
+                Paints.fill(HUD_BACKGROUND_COLOR));
+        Paint text = Paints.fill(HUD_TEXT_COLOR);
+        float lineY = y + HUD_PADDING + metrics.getCapHeight();
+        for (String line : lines) {
+            canvas.drawString(line, x + HUD_PADDING, lineY, FONT12, text);
+            lineY += lineHeight;
+        }
+    }
+
+    /**
+     * Собрать строки оверлея по записанным кадрам
+     *
+     * @return строки оверлея
+     */
+    private static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        int count = (int) Math.min(frames, CAPACITY);
+        if (count == 0) {
+            lines.add("кадров ещё не было");
+            return lines;
+        }
+        System.arraycopy(frameTimes, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        lines.add(String.format("кадр, мс: p50 %.2f  p95 %.2f  p99 %.2f  max %.2f",
+                percentile(count, 0.5), percentile(count, 0.95), percentile(count, 0.99), sorted[count - 1] / 1e6));
+        for (Section section : Section.values())
+            lines.add(String.format("%s: %.3f мс/кадр", section.title, average(sectionTimes[section.ordinal()], count) / 1e6));
+        int last = (int) ((frames - 1) % CAPACITY);
+        lines.add(String.format("точки: нарисовано %d, отброшено %d", pointsDrawn[last], pointsTotal[last] - pointsDrawn[last]));
+        if (THREADS != null)
+            lines.add(String.format("поток интерфейса: %.1f КБ/кадр", average(allocated, count) / 1024));
+        sampleJvm();
+        lines.add(jvmLine);
+        lines.add(gcLine);
+        lines.add(String.format("кадров записано: %d", frames));
+        return lines;
+    }
+
+    /**
+     * Процентиль времени кадра по отсортированному буферу
+     *
+     * @param count кол-во кадров
+     * @param p     доля от 0 до 1
+     * @return время кадра, мс
+     */
+    private static double percentile(int count, double p) {
+        return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)] / 1e6;
+    }
+
+    /**
+     * Среднее значение по последним кадрам
+     *
+     * @param values кольцевой буфер
+     * @param count  кол-во кадров
+     * @return среднее
+     */
+    private static double average(long[] values, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++)
+            sum += values[i];
+        return (double) sum / count;
+    }
+
+    /**
+     * Обновить строки о выделении памяти и сборке мусора по всей JVM,
+     * если с прошлого замера прошло не меньше JVM_SAMPLE_PERIOD
+     */
+    private static void sampleJvm() {
+        long now = System.nanoTime();
+        if (jvmSampleTime != 0 && now - jvmSampleTime < JVM_SAMPLE_PERIOD)
+            return;
+        long allocatedNow = 0;
+        if (THREADS != null) {
+            for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds()))
+                allocatedNow += Math.max(bytes, 0);
+        }
+        long countNow = 0, timeNow = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            countNow += Math.max(gc.getCollectionCount(), 0);
+            timeNow += Math.max(gc.getCollectionTime(), 0);
+        }
+        if (jvmSampleTime == 0) {
+            jvmLine = "JVM: замер...";
+            gcLine = "GC: замер...";
+        } else {
+            double seconds = (now - jvmSampleTime) / 1e9;
+            // завершившиеся потоки пропадают из суммы, поэтому она может уменьшиться
+            jvmLine = THREADS == null ? "JVM: выделение памяти не измеряется"
+                    : String.format("JVM: %.1f МБ/с", Math.max(allocatedNow - jvmAllocated, 0) / seconds / (1 << 20));
+            gcLine = String.format("GC: %d сборок, %d мс пауз за %.1f с", countNow - gcCount, timeNow - gcTime, seconds);
+        }
+        jvmSampleTime = now;
+        jvmAllocated = allocatedNow;
+        gcCount = countNow;
+        gcTime = timeNow;
+    }
+
+    /**
+     * Получить кол-во байт, выделенных текущим потоком
+     *
+     * @return кол-во байт, 0, если JVM его не считает
+     */
+    private static long threadAllocated() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Получить счётчик выделенной памяти потоков
+     *
+     * @return счётчик, null, если JVM его не поддерживает
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            return sunBean;
+        }
+        return null;
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private FrameStats() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
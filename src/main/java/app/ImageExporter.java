@@ -0,0 +1,131 @@
+package app;
+
+import io.github.humbleui.skija.Bitmap;
+import io.github.humbleui.skija.ColorAlphaType;
+import io.github.humbleui.skija.ColorType;
+import io.github.humbleui.skija.ImageInfo;
+import io.github.humbleui.skija.Surface;
+import misc.CoordinateSystem2i;
+import misc.PngWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static app.Colors.APP_BACKGROUND_COLOR;
+
+/**
+ * Экспорт задачи в PNG без окна. Картинка рисуется полосами по BAND_HEIGHT
+ * строк, а каждая полоса - кусками по TILE_WIDTH столбцов во внеэкранной
+ * растровой поверхности Skija; готовая полоса сразу сжимается в файл.
+ * В памяти лежат только одна поверхность куска и одна полоса, поэтому
+ * можно экспортировать картинки 16k x 16k. Окно JWM не нужно, так что
+ * экспорт работает и из пакетного решения.
+ */
+public class ImageExporter {
+    /**
+     * ширина куска
+     */
+    private static final int TILE_WIDTH = 2048;
+    /**
+     * высота полосы
+     */
+    private static final int BAND_HEIGHT = 256;
+    /**
+     * наибольшая сторона картинки
+     */
+    public static final int MAX_SIZE = 1 << 15;
+    /**
+     * флаг, что экспорт запрещён: кисти освобождаются при закрытии окна
+     */
+    private static volatile boolean closed;
+
+    /**
+     * Экспортировать видимую область задачи в PNG в фоновом потоке;
+     * вызывается из потока интерфейса. Рисуется снимок задачи (Task.snapshot),
+     * поэтому задачу можно менять и двигать, пока экспорт идёт
+     *
+     * @param task   задача
+     * @param file   файл картинки
+     * @param width  ширина картинки
+     * @param height высота картинки
+     * @return future, завершающийся путём к картинке или ошибкой экспорта
+     */
+    public static CompletableFuture<Path> exportAsync(Task task, Path file, int width, int height) {
+        Task snapshot = task.snapshot();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                export(snapshot, file, width, height);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        });
+    }
+
+    /**
+     * Экспортировать видимую область задачи в PNG. Кисти общие,
+     * поэтому одновременно выполняется только один экспорт
+     *
+     * @param task   задача
+     * @param file   файл картинки
+     * @param width  ширина картинки
+     * @param height высота картинки
+     * @throws IOException ошибка записи
+     */
+    public static synchronized void export(Task task, Path file, int width, int height) throws IOException {
+        if (width <= 1 || height <= 1 || width > MAX_SIZE || height > MAX_SIZE)
+            throw new IllegalArgumentException("размер картинки должен быть от 2 до " + MAX_SIZE + ": " + width + "x" + height);
+        CoordinateSystem2i imageCS = new CoordinateSystem2i(width, height);
+        int tileWidth = Math.min(TILE_WIDTH, width);
+        int bandHeight = Math.min(BAND_HEIGHT, height);
+        // строки полосы подряд, по 4 байта на пиксель
+        byte[] band = new byte[width * bandHeight * 4];
+        ImageInfo info = new ImageInfo(tileWidth, bandHeight, ColorType.RGBA_8888, ColorAlphaType.PREMUL);
+        try (Surface surface = Surface.makeRaster(info);
+             Bitmap bitmap = new Bitmap();
+             PngWriter writer = new PngWriter(new BufferedOutputStream(Files.newOutputStream(file)), width, height)) {
+            bitmap.allocPixels(info);
+            for (int top = 0; top < height; top += bandHeight) {
+                int rows = Math.min(bandHeight, height - top);
+                for (int left = 0; left < width; left += tileWidth) {
+                    int columns = Math.min(tileWidth, width - left);
+                    if (closed)
+                        throw new IOException("экспорт " + file + " прерван: приложение закрывается");
+                    // фон непрозрачный, поэтому умножение на прозрачность цвета не меняет
+                    surface.getCanvas().clear(APP_BACKGROUND_COLOR);
+                    task.renderTile(surface.getCanvas(), imageCS, left, top, columns, rows);
+                    surface.readPixels(bitmap, 0, 0);
+                    byte[] pixels = bitmap.readPixels();
+                    for (int y = 0; y < rows; y++)
+                        System.arraycopy(pixels, y * tileWidth * 4, band, (y * width + left) * 4, columns * 4);
+                }
+                for (int y = 0; y < rows; y++)
+                    writer.writeRow(band, y * width * 4);
+            }
+        }
+    }
+
+    /**
+     * Прервать идущий экспорт и запретить новые; вызывается перед
+     * освобождением кистей (Paints.clear). Возвращает управление, когда
+     * идущий экспорт остановился на границе куска
+     */
+    public static void close() {
+        closed = true;
+        // экспорт держит монитор класса, пока рисует
+        synchronized (ImageExporter.class) {
+            closed = true;
+        }
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private ImageExporter() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -28,7 +28,7 @@ public class Line {
      * положение прямой
      */
     @JsonCreator
-    public Line(@JsonProperty("pos") Vector2d pos1, Vector2d pos2) {
+    public Line(@JsonProperty("pos1") Vector2d pos1, @JsonProperty("pos2") Vector2d pos2) {
         this.pos1 = pos1;
         this.pos2 = pos2;
     }
@@ -40,6 +40,7 @@ public class Line {
      *
      * @return положение
      */
+    @JsonIgnore
     public Line getLine() {
         Line line = new Line(pos1, pos2);
         return line;
@@ -95,25 +96,25 @@ public class Line {
      * @param ownCS
      */
     public void render(Canvas canvas, CoordinateSystem2i windowCS, CoordinateSystem2d ownCS) {
-        try (Paint p = new Paint()) {
-            // опорные точки прямой
-            Vector2i pointA = windowCS.getCoords(pos1, ownCS);
-            Vector2i pointB = windowCS.getCoords(pos2, ownCS);
+        // кисть по умолчанию из общего реестра
+        Paint p = Paints.fill(Paints.DEFAULT_COLOR);
+        // опорные точки прямой
+        Vector2i pointA = windowCS.getCoords(pos1, ownCS);
+        Vector2i pointB = windowCS.getCoords(pos2, ownCS);
 
-            // вектор, ведущий из точки A в точку B
-            Vector2i delta = Vector2i.subtract(pointA, pointB);
+        // вектор, ведущий из точки A в точку B
+        Vector2i delta = Vector2i.subtract(pointA, pointB);
 
-            // получаем максимальную длину отрезка на экране, как длину диагонали экрана
-            int maxDistance = (int) windowCS.getSize().length();
+        // получаем максимальную длину отрезка на экране, как длину диагонали экрана
+        int maxDistance = (int) windowCS.getSize().length();
 
-            // получаем новые точки для рисования, которые гарантируют, что линия
-            // будет нарисована до границ экрана
-            Vector2i renderPointA = Vector2i.sum(pointA, Vector2i.mult(delta, maxDistance));
-            Vector2i renderPointB = Vector2i.sum(pointA, Vector2i.mult(delta, -maxDistance));
+        // получаем новые точки для рисования, которые гарантируют, что линия
+        // будет нарисована до границ экрана
+        Vector2i renderPointA = Vector2i.sum(pointA, Vector2i.mult(delta, maxDistance));
+        Vector2i renderPointB = Vector2i.sum(pointA, Vector2i.mult(delta, -maxDistance));
 
-            // рисуем линию
-            canvas.drawLine(renderPointA.x, renderPointA.y, renderPointB.x, renderPointB.y, p);
-        }
+        // рисуем линию
+        canvas.drawLine(renderPointA.x, renderPointA.y, renderPointB.x, renderPointB.y, p);
     }
 
 
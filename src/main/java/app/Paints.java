@@ -0,0 +1,127 @@
+package app;
+
+import io.github.humbleui.skija.Paint;
+import io.github.humbleui.skija.PaintMode;
+import io.github.humbleui.skija.PaintStrokeCap;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Общие кисти окна. Кисть с одними и теми же цветом, толщиной линии,
+ * режимом и концами линий создаётся один раз и дальше переиспользуется,
+ * поэтому рисование кадра не создаёт и не освобождает нативных Paint.
+ * Разных кистей в приложении немного, поэтому поиск идёт простым
+ * перебором без создания ключей. Кисти после создания не меняются,
+ * поэтому ими рисует и экспорт картинки в фоновом потоке: поиск идёт
+ * без блокировок, а новые кисти добавляются под блокировкой.
+ */
+public class Paints {
+    /**
+     * цвет кисти по умолчанию, как у new Paint()
+     */
+    public static final int DEFAULT_COLOR = 0xFF000000;
+    /**
+     * созданные кисти
+     */
+    private static final List<Entry> PAINTS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Кисть вместе с её параметрами
+     *
+     * @param color       цвет
+     * @param strokeWidth толщина линии
+     * @param mode        режим рисования
+     * @param cap         концы линий
+     * @param paint       кисть
+     */
+    private record Entry(int color, float strokeWidth, PaintMode mode, PaintStrokeCap cap, Paint paint) {
+    }
+
+    /**
+     * Получить кисть заливки
+     *
+     * @param color цвет
+     * @return кисть
+     */
+    public static Paint fill(int color) {
+        return get(color, 0, PaintMode.FILL, PaintStrokeCap.BUTT);
+    }
+
+    /**
+     * Получить кисть линий
+     *
+     * @param color       цвет
+     * @param strokeWidth толщина линии
+     * @param cap         концы линий
+     * @return кисть
+     */
+    public static Paint stroke(int color, float strokeWidth, PaintStrokeCap cap) {
+        return get(color, strokeWidth, PaintMode.STROKE, cap);
+    }
+
+    /**
+     * Получить кисть. Кисть принадлежит реестру: её нельзя менять и закрывать
+     *
+     * @param color       цвет
+     * @param strokeWidth толщина линии
+     * @param mode        режим рисования
+     * @param cap         концы линий
+     * @return кисть
+     */
+    public static Paint get(int color, float strokeWidth, PaintMode mode, PaintStrokeCap cap) {
+        Paint found = find(color, strokeWidth, mode, cap);
+        return found != null ? found : create(color, strokeWidth, mode, cap);
+    }
+
+    /**
+     * Найти созданную кисть
+     *
+     * @param color       цвет
+     * @param strokeWidth толщина линии
+     * @param mode        режим рисования
+     * @param cap         концы линий
+     * @return кисть или null, если её ещё нет
+     */
+    private static Paint find(int color, float strokeWidth, PaintMode mode, PaintStrokeCap cap) {
+        for (Entry entry : PAINTS) {
+            if (entry.color == color && entry.strokeWidth == strokeWidth && entry.mode == mode && entry.cap == cap)
+                return entry.paint;
+        }
+        return null;
+    }
+
+    /**
+     * Создать кисть, если её не создал другой поток
+     *
+     * @param color       цвет
+     * @param strokeWidth толщина линии
+     * @param mode        режим рисования
+     * @param cap         концы линий
+     * @return кисть
+     */
+    private static synchronized Paint create(int color, float strokeWidth, PaintMode mode, PaintStrokeCap cap) {
+        Paint found = find(color, strokeWidth, mode, cap);
+        if (found != null)
+            return found;
+        Paint paint = new Paint().setColor(color).setMode(mode).setStrokeWidth(strokeWidth).setStrokeCap(cap);
+        PAINTS.add(new Entry(color, strokeWidth, mode, cap, paint));
+        return paint;
+    }
+
+    /**
+     * Закрыть все кисти
+     */
+    public static synchronized void clear() {
+        for (Entry entry : PAINTS)
+            entry.paint.close();
+        PAINTS.clear();
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private Paints() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
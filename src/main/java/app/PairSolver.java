@@ -0,0 +1,355 @@
+package app;
+
+import misc.LongPairSet;
+import misc.PointStore;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Перебор пар точек
+ */
+public class PairSolver {
+    /**
+     * минимальное кол-во пар в одной подзадаче параллельного перебора,
+     * меньшие диапазоны строк дешевле досчитать в текущем потоке
+     */
+    private static final long MIN_PAIRS_PER_TASK = 1 << 18;
+    /**
+     * относительная точность, с которой прямые считаются совпадающими
+     */
+    private static final double LINE_TOLERANCE = 1e-9;
+    /**
+     * наибольший двоичный логарифм размера таблицы уже отсечённых прямых
+     */
+    private static final int MAX_LINES_LOG = 20;
+    /**
+     * кол-во проверок прямых, после которого оценивается доля повторов
+     */
+    private static final long MIN_LINE_PROBES = 1 << 16;
+    /**
+     * таблица прямых отключается, если повторов меньше одного на столько проверок
+     */
+    private static final long MIN_HIT_RATIO = 8;
+
+    /**
+     * Перебрать пары (i, j) для строк i из диапазона [from, to)
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param from     первая строка
+     * @param to       строка после последней
+     * @param monitor  наблюдение за ходом решения
+     * @return лучший отрезок среди перебранных пар
+     */
+    public static ChordAnswer scanRows(Triangle triangle, PointStore points, int from, int to, SolveMonitor monitor) {
+        ChordKernel kernel = new ChordKernel(triangle);
+        ChordAnswer answer = new ChordAnswer();
+        int n = points.size();
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        // лучший квадрат длины держим в локальной переменной, чтобы
+        // в цикле не читать поле
+        double best = 0;
+        for (int i = from; i < to; i++) {
+            kernel.setAnchor(xs[i], ys[i]);
+            for (int j = 0; j < n; j++) {
+                // для i == j прямой нет, и ядро вернёт 0
+                double lengthSq = kernel.lengthSq(xs[j], ys[j], best);
+                if (lengthSq > best) {
+                    best = lengthSq;
+                    answer.offer(lengthSq, i, j);
+                    monitor.offer(lengthSq, i, j);
+                }
+            }
+            answer.pairs += n;
+            if (!monitor.advance(n))
+                break;
+        }
+        return answer;
+    }
+
+    /**
+     * Последовательный перебор всех пар
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @return лучший отрезок
+     */
+    public static ChordAnswer solveSequential(Triangle triangle, PointStore points) {
+        return solveSequential(triangle, points, new SolveMonitor());
+    }
+
+    /**
+     * Последовательный перебор всех пар
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param monitor  наблюдение за ходом решения
+     * @return лучший отрезок, при остановке - лучший среди пройденных пар
+     */
+    public static ChordAnswer solveSequential(Triangle triangle, PointStore points, SolveMonitor monitor) {
+        monitor.start((long) points.size() * points.size());
+        return scanRows(triangle, points, 0, points.size(), monitor);
+    }
+
+    /**
+     * Параллельный перебор всех пар: диапазон строк делится пополам,
+     * пока в подзадаче достаточно пар, каждая подзадача ищет свой
+     * лучший отрезок, а результаты объединяются с тем же правилом выбора
+     * при равенстве длин, что и у последовательного перебора
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @return лучший отрезок
+     */
+    public static ChordAnswer solveParallel(Triangle triangle, PointStore points) {
+        return solveParallel(triangle, points, new SolveMonitor());
+    }
+
+    /**
+     * Параллельный перебор всех пар
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param monitor  наблюдение за ходом решения
+     * @return лучший отрезок, при остановке - лучший среди пройденных пар
+     */
+    public static ChordAnswer solveParallel(Triangle triangle, PointStore points, SolveMonitor monitor) {
+        monitor.start((long) points.size() * points.size());
+        return ForkJoinPool.commonPool().invoke(new RowsTask(triangle, points, 0, points.size(), monitor));
+    }
+
+    /**
+     * Дополнить ответ парами с новыми точками: для каждой точки k из
+     * диапазона [from, size) проверяются упорядоченные пары (i, k) и (k, i)
+     * со всеми точками i < k. Квадраты длин считаются с той же опорной
+     * точкой, что и при последовательном переборе, поэтому дополненный
+     * ответ в точности совпадает с ответом полного перебора
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param answer   ответ для первых from точек, дополняется на месте
+     * @param from     кол-во точек, уже учтённых в ответе
+     */
+    public static void extend(Triangle triangle, PointStore points, ChordAnswer answer, int from) {
+        extend(triangle, points, answer, from, new SolveMonitor());
+    }
+
+    /**
+     * Дополнить ответ парами с новыми точками
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param answer   ответ для первых from точек, дополняется на месте
+     * @param from     кол-во точек, уже учтённых в ответе
+     * @param monitor  наблюдение за ходом решения
+     * @return кол-во точек, учтённых в ответе (меньше кол-ва точек, если перебор остановлен)
+     */
+    public static int extend(Triangle triangle, PointStore points, ChordAnswer answer, int from, SolveMonitor monitor) {
+        ChordKernel kernel = new ChordKernel(triangle);
+        int n = points.size();
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        monitor.start((long) n * (n - 1) - (long) from * (from - 1));
+        for (int k = from; k < n; k++) {
+            double kx = xs[k];
+            double ky = ys[k];
+            // пары (i, k): опорная точка - i
+            for (int i = 0; i < k; i++) {
+                kernel.setAnchor(xs[i], ys[i]);
+                double lengthSq = kernel.lengthSq(kx, ky, answer.lengthSq);
+                if (lengthSq > 0)
+                    answer.offer(lengthSq, i, k);
+            }
+            // пары (k, i): опорная точка - k
+            kernel.setAnchor(kx, ky);
+            for (int i = 0; i < k; i++) {
+                double lengthSq = kernel.lengthSq(xs[i], ys[i], answer.lengthSq);
+                if (lengthSq > 0)
+                    answer.offer(lengthSq, k, i);
+            }
+            answer.pairs += 2L * k;
+            monitor.offer(answer.lengthSq, answer.i, answer.j);
+            if (!monitor.advance(2L * k))
+                return k + 1;
+        }
+        return n;
+    }
+
+    /**
+     * Перебор неупорядоченных пар i < j без повторного отсечения одной и той же прямой.
+     * Сначала из совпадающих точек оставляется первая: остальные задают
+     * те же прямые. Затем каждая прямая приводится к каноническому виду:
+     * направление делится на наибольшую по модулю компоненту и
+     * разворачивается так, чтобы первая ненулевая компонента была
+     * положительной, а смещение считается по этому направлению. Все три
+     * числа округляются с точностью LINE_TOLERANCE и служат ключом в таблице
+     * уже отсечённых прямых. Пары перебираются в лексикографическом порядке,
+     * поэтому каждая прямая отсекается через первую пару своих точек.
+     * Если прямые почти не повторяются, таблица только тратит время, и после
+     * MIN_LINE_PROBES проверок с долей повторов меньше 1 / MIN_HIT_RATIO
+     * она отключается до конца перебора
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @return лучший отрезок
+     */
+    public static ChordAnswer solveDedup(Triangle triangle, PointStore points) {
+        return solveDedup(triangle, points, new SolveMonitor());
+    }
+
+    /**
+     * Перебор неупорядоченных пар без повторного отсечения одной и той же прямой
+     *
+     * @param triangle треугольник
+     * @param points   точки
+     * @param monitor  наблюдение за ходом решения
+     * @return лучший отрезок, при остановке - лучший среди пройденных пар
+     */
+    public static ChordAnswer solveDedup(Triangle triangle, PointStore points, SolveMonitor monitor) {
+        ChordKernel kernel = new ChordKernel(triangle);
+        ChordAnswer answer = new ChordAnswer();
+        int[] unique = uniquePoints(points);
+        int n = unique.length;
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        // смещения прямых масштабируем по наибольшей координате
+        double scale = 0;
+        for (int index : unique)
+            scale = Math.max(scale, Math.max(Math.abs(xs[index]), Math.abs(ys[index])));
+        double directionStep = 1 / LINE_TOLERANCE;
+        double offsetStep = 1 / (LINE_TOLERANCE * (scale > 0 ? scale : 1));
+        // таблица размером порядка кол-ва пар, но не больше MAX_LINES_LOG
+        long pairs = (long) n * (n - 1) / 2;
+        monitor.start(pairs);
+        LongPairSet clipped = new LongPairSet(Math.max(10, Math.min(MAX_LINES_LOG, 65 - Long.numberOfLeadingZeros(pairs))));
+        boolean dedup = true;
+        long probes = 0;
+        long hits = 0;
+        double best = 0;
+        for (int a = 0; a < n; a++) {
+            int i = unique[a];
+            double px = xs[i];
+            double py = ys[i];
+            kernel.setAnchor(px, py);
+            for (int b = a + 1; b < n; b++) {
+                int j = unique[b];
+                if (dedup) {
+                    double dx = xs[j] - px;
+                    double dy = ys[j] - py;
+                    double inv = 1 / Math.max(Math.abs(dx), Math.abs(dy));
+                    if (dx < 0 || (dx == 0 && dy < 0))
+                        inv = -inv;
+                    double ux = dx * inv;
+                    double uy = dy * inv;
+                    // округление отбрасыванием дробной части: для ключа важна
+                    // только одинаковость, а не точность
+                    long keyDirection = (long) (ux * directionStep) << 32
+                            | ((long) (uy * directionStep) & 0xFFFFFFFFL);
+                    long keyOffset = (long) ((ux * py - uy * px) * offsetStep);
+                    probes++;
+                    if (!clipped.add(keyDirection, keyOffset)) {
+                        hits++;
+                        continue;
+                    }
+                }
+                answer.pairs++;
+                double lengthSq = kernel.lengthSq(xs[j], ys[j], best);
+                if (lengthSq > best) {
+                    best = lengthSq;
+                    answer.offer(lengthSq, i, j);
+                    monitor.offer(lengthSq, i, j);
+                }
+            }
+            if (dedup && probes >= MIN_LINE_PROBES && hits * MIN_HIT_RATIO < probes)
+                dedup = false;
+            if (!monitor.advance(n - 1 - a))
+                break;
+        }
+        return answer;
+    }
+
+    /**
+     * Индексы точек без повторов: из совпадающих точек остаётся первая
+     *
+     * @param points точки
+     * @return индексы по возрастанию
+     */
+    static int[] uniquePoints(PointStore points) {
+        int n = points.size();
+        // таблица вдвое больше кол-ва точек и никогда не очищается
+        LongPairSet seen = new LongPairSet(Math.max(4, 33 - Integer.numberOfLeadingZeros(n)));
+        int[] unique = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            // + 0.0 превращает -0.0 в 0.0
+            if (seen.add(Double.doubleToLongBits(points.getX(i) + 0.0), Double.doubleToLongBits(points.getY(i) + 0.0)))
+                unique[count++] = i;
+        }
+        return Arrays.copyOf(unique, count);
+    }
+
+    /**
+     * Подзадача параллельного перебора по диапазону строк
+     */
+    private static class RowsTask extends RecursiveTask<ChordAnswer> {
+        /**
+         * треугольник
+         */
+        private final Triangle triangle;
+        /**
+         * точки
+         */
+        private final PointStore points;
+        /**
+         * первая строка
+         */
+        private final int from;
+        /**
+         * строка после последней
+         */
+        private final int to;
+        /**
+         * наблюдение за ходом решения
+         */
+        private final SolveMonitor monitor;
+
+        /**
+         * Конструктор подзадачи
+         *
+         * @param triangle треугольник
+         * @param points   точки
+         * @param from     первая строка
+         * @param to       строка после последней
+         * @param monitor  наблюдение за ходом решения
+         */
+        RowsTask(Triangle triangle, PointStore points, int from, int to, SolveMonitor monitor) {
+            this.triangle = triangle;
+            this.points = points;
+            this.from = from;
+            this.to = to;
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected ChordAnswer compute() {
+            if (to - from < 2 || (long) (to - from) * points.size() <= MIN_PAIRS_PER_TASK)
+                return scanRows(triangle, points, from, to, monitor);
+            int mid = (from + to) >>> 1;
+            RowsTask left = new RowsTask(triangle, points, from, mid, monitor);
+            RowsTask right = new RowsTask(triangle, points, mid, to, monitor);
+            left.fork();
+            ChordAnswer rightAnswer = right.compute();
+            return left.join().merge(rightAnswer);
+        }
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private PairSolver() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
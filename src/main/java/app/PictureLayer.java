@@ -0,0 +1,60 @@
+package app;
+
+import io.github.humbleui.skija.Canvas;
+import io.github.humbleui.skija.Picture;
+import io.github.humbleui.skija.PictureRecorder;
+import misc.CoordinateSystem2i;
+
+import java.util.function.Consumer;
+
+/**
+ * Слой сцены, записанный в Picture. Слой перерисовывается, только когда
+ * меняется версия его данных (вместе с видимой областью) или СК окна;
+ * в остальных кадрах записанная картинка просто проигрывается на холсте.
+ */
+public class PictureLayer implements AutoCloseable {
+    /**
+     * записанный слой, null, если слой ещё не записан
+     */
+    private Picture picture;
+    /**
+     * версия данных, с которой записан слой
+     */
+    private long version;
+    /**
+     * СК окна, в которой записан слой
+     */
+    private CoordinateSystem2i windowCS;
+
+    /**
+     * Нарисовать слой, при необходимости записав его заново
+     *
+     * @param canvas   область рисования
+     * @param windowCS СК окна
+     * @param version  версия данных слоя и видимой области
+     * @param painter  рисование слоя, вызывается только при записи
+     */
+    public void render(Canvas canvas, CoordinateSystem2i windowCS, long version, Consumer<Canvas> painter) {
+        if (picture == null || this.version != version || !windowCS.equals(this.windowCS)) {
+            close();
+            try (PictureRecorder recorder = new PictureRecorder()) {
+                painter.accept(recorder.beginRecording(windowCS.getRect()));
+                picture = recorder.finishRecordingAsPicture();
+            }
+            this.version = version;
+            this.windowCS = windowCS;
+        }
+        canvas.drawPicture(picture);
+    }
+
+    /**
+     * Освободить записанный слой
+     */
+    @Override
+    public void close() {
+        if (picture != null) {
+            picture.close();
+            picture = null;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package app;
+
+import lombok.Getter;
+import misc.PointParser;
+import misc.PointStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Импорт облака точек из текстового файла CSV/XYZ (формат строк описан
+ * в PointParser). Файл отображается в память и делится на куски
+ * примерно по CHUNK_SIZE байт, границы которых сдвинуты к началу строки;
+ * куски разбираются параллельно в общем пуле ForkJoin, каждый в своё
+ * хранилище, а затем склеиваются по порядку. Номера строк в сообщениях
+ * об ошибках сквозные по всему файлу.
+ */
+public class PointImporter {
+    /**
+     * примерный размер куска, разбираемого одной задачей
+     */
+    public static final int CHUNK_SIZE = 16 << 20;
+    /**
+     * размер окна, в котором ищется конец строки у границы куска
+     */
+    private static final int SCAN_WINDOW = 1 << 16;
+    /**
+     * сколько сообщений об ошибочных строках попадает в результат
+     */
+    public static final int MAX_MESSAGES = PointParser.MAX_ERRORS;
+
+    /**
+     * Результат импорта
+     */
+    public static class Result {
+        /**
+         * прочитанные точки
+         */
+        @Getter
+        private final PointStore points;
+        /**
+         * кол-во строк файла
+         */
+        @Getter
+        private final long lines;
+        /**
+         * кол-во ошибочных строк
+         */
+        @Getter
+        private final long errors;
+        /**
+         * сообщения о первых ошибочных строках
+         */
+        @Getter
+        private final List<String> messages;
+
+        /**
+         * Конструктор результата
+         *
+         * @param points   прочитанные точки
+         * @param lines    кол-во строк
+         * @param errors   кол-во ошибочных строк
+         * @param messages сообщения об ошибках
+         */
+        private Result(PointStore points, long lines, long errors, List<String> messages) {
+            this.points = points;
+            this.lines = lines;
+            this.errors = errors;
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * Прочитать точки в фоновом потоке
+     *
+     * @param file файл
+     * @return future с результатом или ошибкой чтения
+     */
+    public static CompletableFuture<Result> readAsync(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return read(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Прочитать точки из файла
+     *
+     * @param file файл
+     * @return результат
+     * @throws IOException ошибка чтения
+     */
+    public static Result read(Path file) throws IOException {
+        return read(file, CHUNK_SIZE);
+    }
+
+    /**
+     * Прочитать точки из файла кусками заданного размера
+     *
+     * @param file      файл
+     * @param chunkSize примерный размер куска
+     * @return результат
+     * @throws IOException ошибка чтения
+     */
+    public static Result read(Path file, int chunkSize) throws IOException {
+        PointParser[] parsers;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = splitLines(channel, chunkSize);
+            parsers = new PointParser[bounds.length - 1];
+            try {
+                ForkJoinPool.commonPool().invoke(new ChunksTask(channel, bounds, parsers, 0, parsers.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        long total = 0;
+        long lines = 0;
+        long errors = 0;
+        List<String> messages = new ArrayList<>();
+        for (PointParser parser : parsers) {
+            // номера строк куска сдвигаются на строки предыдущих кусков
+            for (int i = 0; i < parser.getReportedErrors() && messages.size() < MAX_MESSAGES; i++)
+                messages.add("строка " + (lines + parser.getErrorLine(i)) + ": " + parser.getErrorMessage(i));
+            total += parser.getPoints().size();
+            lines += parser.getLines();
+            errors += parser.getErrors();
+        }
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IOException("в файле " + file + " слишком много точек: " + total);
+        PointStore points;
+        if (parsers.length == 1) {
+            points = parsers[0].getPoints();
+        } else {
+            points = new PointStore((int) Math.max(total, 1));
+            for (PointParser parser : parsers)
+                points.addAll(parser.getPoints());
+        }
+        return new Result(points, lines, errors, messages);
+    }
+
+    /**
+     * Разбить файл на куски, каждый из которых начинается с начала строки
+     *
+     * @param channel   канал файла
+     * @param chunkSize примерный размер куска
+     * @return границы кусков: первая 0, последняя - размер файла
+     * @throws IOException ошибка отображения
+     */
+    private static long[] splitLines(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long start = 0;
+        while (size - start > chunkSize) {
+            start = nextLine(channel, start + chunkSize, size);
+            if (start >= size)
+                break;
+            bounds.add(start);
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+
+    /**
+     * Найти начало строки, ближайшее к позиции
+     *
+     * @param channel канал файла
+     * @param pos     позиция
+     * @param size    размер файла
+     * @return индекс первого байта строки, начинающейся не раньше pos, или size
+     * @throws IOException ошибка отображения
+     */
+    private static long nextLine(FileChannel channel, long pos, long size) throws IOException {
+        // строка начинается с pos, если перед ним перевод строки
+        for (long from = pos - 1; from < size; from += SCAN_WINDOW) {
+            int length = (int) Math.min(SCAN_WINDOW, size - from);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            for (int i = 0; i < length; i++)
+                if (window.get(i) == '\n')
+                    return from + i + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Задача разбора кусков файла: делит диапазон кусков пополам,
+     * пока не останется один
+     */
+    private static class ChunksTask extends RecursiveAction {
+        /**
+         * канал файла
+         */
+        private final FileChannel channel;
+        /**
+         * границы кусков
+         */
+        private final long[] bounds;
+        /**
+         * разборщики кусков, заполняются задачей
+         */
+        private final PointParser[] parsers;
+        /**
+         * первый кусок
+         */
+        private final int from;
+        /**
+         * кусок после последнего
+         */
+        private final int to;
+
+        /**
+         * Конструктор задачи
+         *
+         * @param channel канал файла
+         * @param bounds  границы кусков
+         * @param parsers разборщики кусков
+         * @param from    первый кусок
+         * @param to      кусок после последнего
+         */
+        ChunksTask(FileChannel channel, long[] bounds, PointParser[] parsers, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.parsers = parsers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                parsers[from] = parseChunk(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ChunksTask left = new ChunksTask(channel, bounds, parsers, from, mid);
+            left.fork();
+            new ChunksTask(channel, bounds, parsers, mid, to).compute();
+            left.join();
+        }
+
+        /**
+         * Разобрать кусок
+         *
+         * @param chunk номер куска
+         * @return разборщик с точками куска
+         */
+        private PointParser parseChunk(int chunk) {
+            PointParser parser = new PointParser();
+            long length = bounds[chunk + 1] - bounds[chunk];
+            try {
+                // отображение не бывает длиннее 2 ГиБ
+                if (length > Integer.MAX_VALUE)
+                    throw new IOException("строка у смещения " + bounds[chunk] + " длиннее " + Integer.MAX_VALUE + " байт");
+                if (length > 0)
+                    parser.parse(channel.map(FileChannel.MapMode.READ_ONLY, bounds[chunk], length));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return parser;
+        }
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private PointImporter() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
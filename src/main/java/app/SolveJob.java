@@ -0,0 +1,96 @@
+package app;
+
+import lombok.Getter;
+import misc.PointStore;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Решение задачи в отдельном потоке. Решается копия точек, поэтому
+ * задачу можно менять, пока решение идёт; результат приходит через
+ * future, а ход решения и лучший отрезок на данный момент доступны
+ * через monitor.
+ */
+public class SolveJob {
+    /**
+     * поток решения: один на всё приложение, чтобы решения не мешали
+     * друг другу, и фоновый, чтобы не мешать закрытию окна
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * треугольник
+     */
+    @Getter
+    private final Triangle triangle;
+    /**
+     * ядро треугольника для рисования лучшего отрезка на данный момент;
+     * используется только из потока интерфейса
+     */
+    @Getter
+    private final ChordKernel kernel;
+    /**
+     * копия точек, которая решается
+     */
+    @Getter
+    private final PointStore points;
+    /**
+     * наблюдение за ходом решения
+     */
+    @Getter
+    private final SolveMonitor monitor;
+    /**
+     * результат решения
+     */
+    @Getter
+    private final CompletableFuture<ChordAnswer> future;
+
+    /**
+     * Запустить решение
+     *
+     * @param triangle треугольник
+     * @param points   копия точек
+     * @param monitor  наблюдение за ходом решения
+     * @param solver   решение
+     */
+    public SolveJob(Triangle triangle, PointStore points, SolveMonitor monitor, Supplier<ChordAnswer> solver) {
+        this.triangle = triangle;
+        kernel = new ChordKernel(triangle);
+        this.points = points;
+        this.monitor = monitor;
+        future = CompletableFuture.supplyAsync(solver, EXECUTOR);
+    }
+
+    /**
+     * Отменить решение: future сразу завершается с CancellationException,
+     * а перебор останавливается после текущей строки
+     */
+    public void cancel() {
+        monitor.cancel();
+        future.cancel(false);
+    }
+
+    /**
+     * Проверить, завершено ли решение
+     *
+     * @return флаг
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Проверить, было ли решение остановлено по лимиту времени
+     *
+     * @return флаг
+     */
+    public boolean isTimedOut() {
+        return monitor.isTimedOut();
+    }
+}
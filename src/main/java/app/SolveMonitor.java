@@ -0,0 +1,169 @@
+package app;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Наблюдение за ходом решения: перебор сообщает сюда, сколько пар уже
+ * пройдено и какой отрезок лучший на данный момент, и после каждой строки
+ * перебора спрашивает, не пора ли остановиться (решение отменено или
+ * истёк лимит времени). Методы можно вызывать из нескольких потоков.
+ */
+public class SolveMonitor {
+    /**
+     * шаг в процентах, с которым сообщается о ходе решения
+     */
+    private static final int PROGRESS_STEP = 10;
+    /**
+     * момент (System.nanoTime), после которого решение останавливается, 0 - без лимита
+     */
+    private final long deadline;
+    /**
+     * кол-во пройденных пар
+     */
+    private final LongAdder done = new LongAdder();
+    /**
+     * последний шаг хода решения, о котором уже сообщено
+     */
+    private final AtomicInteger reportedStep = new AtomicInteger();
+    /**
+     * лучший отрезок на данный момент
+     */
+    private final ChordAnswer best = new ChordAnswer();
+    /**
+     * всего пар
+     */
+    private volatile long total = 1;
+    /**
+     * флаг отмены решения
+     */
+    private volatile boolean cancelled;
+    /**
+     * флаг истечения лимита времени
+     */
+    private volatile boolean timedOut;
+    /**
+     * обработчик хода решения, получает процент пройденных пар
+     */
+    private volatile IntConsumer onProgress;
+
+    /**
+     * Конструктор наблюдения без лимита времени
+     */
+    public SolveMonitor() {
+        this(0);
+    }
+
+    /**
+     * Конструктор наблюдения
+     *
+     * @param timeLimit лимит времени в миллисекундах, 0 - без лимита
+     */
+    public SolveMonitor(long timeLimit) {
+        deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000 : 0;
+    }
+
+    /**
+     * Задать обработчик хода решения
+     *
+     * @param onProgress обработчик, получает процент пройденных пар
+     */
+    public void setOnProgress(IntConsumer onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Начать перебор
+     *
+     * @param total всего пар
+     */
+    public void start(long total) {
+        this.total = Math.max(total, 1);
+    }
+
+    /**
+     * Сообщить о пройденных парах
+     *
+     * @param pairs кол-во пар
+     * @return true, если перебор можно продолжать
+     */
+    public boolean advance(long pairs) {
+        done.add(pairs);
+        IntConsumer handler = onProgress;
+        if (handler != null) {
+            int step = (int) Math.min(100 / PROGRESS_STEP, done.sum() * (100 / PROGRESS_STEP) / total);
+            int reported = reportedStep.get();
+            if (step > reported && reportedStep.compareAndSet(reported, step))
+                handler.accept(step * PROGRESS_STEP);
+        }
+        return !isStopped();
+    }
+
+    /**
+     * Сообщить о лучшем отрезке, найденном в одной из частей перебора
+     *
+     * @param lengthSq квадрат длины отрезка
+     * @param i        индекс первой точки
+     * @param j        индекс второй точки
+     */
+    public synchronized void offer(double lengthSq, int i, int j) {
+        best.offer(lengthSq, i, j);
+    }
+
+    /**
+     * Получить копию лучшего отрезка на данный момент
+     *
+     * @return лучший отрезок
+     */
+    public synchronized ChordAnswer getBest() {
+        return best.copy();
+    }
+
+    /**
+     * Получить долю пройденных пар
+     *
+     * @return доля от 0 до 1
+     */
+    public double getProgress() {
+        return Math.min(1, (double) done.sum() / total);
+    }
+
+    /**
+     * Отменить решение
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Проверить, отменено ли решение
+     *
+     * @return флаг
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Проверить, истёк ли лимит времени
+     *
+     * @return флаг
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Проверить, нужно ли остановить перебор
+     *
+     * @return флаг
+     */
+    public boolean isStopped() {
+        if (cancelled || timedOut)
+            return true;
+        if (deadline != 0 && System.nanoTime() - deadline > 0)
+            timedOut = true;
+        return timedOut;
+    }
+}
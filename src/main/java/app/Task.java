@@ -8,16 +8,21 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import io.github.humbleui.jwm.MouseButton;
 import io.github.humbleui.skija.Canvas;
 import io.github.humbleui.skija.Paint;
+import io.github.humbleui.skija.PaintStrokeCap;
 import io.github.humbleui.skija.RRect;
-import io.github.humbleui.skija.Rect;
 import lombok.Getter;
+import lombok.Setter;
 import misc.CoordinateSystem2d;
 import misc.CoordinateSystem2i;
+import misc.PointGrid;
+import misc.PointStore;
+import misc.Transform2d;
 import misc.Vector2d;
 import misc.Vector2i;
 import panels.PanelLog;
 
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
 import static app.Colors.CROSSED_COLOR;
 import static app.Colors.SUBTRACTED_COLOR;
@@ -45,6 +50,18 @@ public class Task {
      * Размер точки
      */
     private static final int POINT_SIZE = 3;
+    /**
+     * кол-во точек, начиная с которого вместо квадратов рисуется карта плотности
+     */
+    public static final int DENSITY_THRESHOLD = 100_000;
+    /**
+     * наименьший размер видимой области относительно СК задачи
+     */
+    private static final double MIN_VIEW_SCALE = 1e-6;
+    /**
+     * наибольший размер видимой области относительно СК задачи
+     */
+    private static final double MAX_VIEW_SCALE = 1e3;
 
     /**
      * Вещественная система координат задачи
@@ -52,10 +69,10 @@ public class Task {
     @Getter
     private final CoordinateSystem2d ownCS;
     /**
-     * Список точек
+     * Хранилище точек
      */
     @Getter
-    private final ArrayList<Point> points;
+    private final PointStore points;
 
     /**
      * Список прямых
@@ -99,6 +116,21 @@ public class Task {
     @Getter
     Triangle triangle;
 
+    /**
+     * журнал изменений задачи, null, если изменения не записываются
+     */
+    @JsonIgnore
+    @Getter
+    @Setter
+    private TaskJournal journal;
+    /**
+     * выполнение работы в потоке интерфейса: завершение решений в отдельном
+     * потоке и отложенное дополнение ответа; тесты подменяют его своей очередью
+     */
+    @JsonIgnore
+    @Setter
+    private Consumer<Runnable> uiThread = FrameScheduler::runOnUIThread;
+
 
     /**
      * Задача
@@ -109,13 +141,15 @@ public class Task {
     @JsonCreator
     public Task(
             @JsonProperty("ownCS") CoordinateSystem2d ownCS,
-            @JsonProperty("points") ArrayList<Point> points,
+            @JsonProperty("points") PointStore points,
             @JsonProperty("lines") ArrayList<Line> lines
 
     ) {
         this.ownCS = ownCS;
-        this.points = points;
+        this.points = points != null ? points : new PointStore();
         this.lines = lines;
+        viewCS = new CoordinateSystem2d(ownCS.getMin(), ownCS.getMax());
+        pointGrid = new PointGrid(this.points);
     }
 
 
@@ -123,9 +157,19 @@ public class Task {
      * Очистить задачу
      */
     public void clear() {
+        if (journal != null)
+            journal.recordClear();
         points.clear();
         solved = false;
         triangle = null;
+        incrementalAnswer = null;
+        extendScheduled = false;
+        version++;
+        pointsVersion++;
+        triangleVersion++;
+        densityGrid.reset();
+        pointGrid.reset();
+        cancelSolve();
     }
 
 
@@ -140,30 +184,285 @@ public class Task {
         lastWindowCS = windowCS;
 
         canvas.save();
-        // создаём перо
-        try (var p = new Paint()) {
-            for (Point point : points) {
-                // y-координату разворачиваем, потому что у СК окна ось y направлена вниз,
-                // а в классическом представлении - вверх
-                Vector2i windowPos = windowCS.getCoords(point.pos.x, point.pos.y, ownCS);
-                canvas.drawRect(Rect.makeXYWH(windowPos.x - POINT_SIZE, windowPos.y - POINT_SIZE, POINT_SIZE * 2, POINT_SIZE * 2), p);
+        // перо из общего реестра кистей
+        Paint p = Paints.fill(Paints.DEFAULT_COLOR);
+        // при большом кол-ве видимых точек квадраты сливаются, поэтому рисуем карту плотности
+        if (countVisible() > DENSITY_THRESHOLD) {
+            densityGrid.render(canvas, windowCS, viewCS, viewVersion, points, pointGrid);
+            FrameStats.recordPoints(countVisible(), points.size());
+        } else {
+            // точки и треугольник меняются редко: их слои записываются заново
+            // только при изменении задачи, видимой области или размера окна
+            pointsLayer.render(canvas, windowCS, layerVersion(pointsVersion), layer -> renderPoints(layer, windowCS));
+            FrameStats.recordPoints(drawnPoints, points.size());
+        }
+        if (triangle != null)
+            triangleLayer.render(canvas, windowCS, layerVersion(triangleVersion), layer -> triangle.render(layer, windowCS, viewCS));
+        if (solved && maxLenght != 0)
+            renderAnswer(canvas, windowCS, p, pos1_answer, pos2_answer, pos1_cross, pos2_cross);
+        else if (job != null) {
+            // пока решение идёт, рисуем лучший отрезок на данный момент
+            ChordAnswer best = job.getMonitor().getBest();
+            if (best.isFound()) {
+                // ядро и векторы переиспользуются между кадрами
+                PointStore jobPoints = job.getPoints();
+                ChordKernel kernel = job.getKernel();
+                bestPos1.x = jobPoints.getX(best.i);
+                bestPos1.y = jobPoints.getY(best.i);
+                bestPos2.x = jobPoints.getX(best.j);
+                bestPos2.y = jobPoints.getY(best.j);
+                kernel.clip(bestPos1.x, bestPos1.y, bestPos2.x, bestPos2.y);
+                bestCross1.x = kernel.x1;
+                bestCross1.y = kernel.y1;
+                bestCross2.x = kernel.x2;
+                bestCross2.y = kernel.y2;
+                renderAnswer(canvas, windowCS, p, bestPos1, bestPos2, bestCross1, bestCross2);
             }
+        }
+        canvas.restore();
+    }
 
-            // рисуем треугольник
-            if (triangle != null)
-                triangle.render(canvas, windowCS, ownCS);
-            if (solved && maxLenght != 0) {
-                // рисуем прямую через точки в ответе
-                Line lineAnswer = new Line(pos1_answer, pos2_answer);
-                lineAnswer.render(canvas, windowCS, ownCS);
+    /**
+     * Версия слоя: версия его данных вместе с версией видимой области
+     *
+     * @param dataVersion версия данных слоя
+     * @return версия слоя
+     */
+    private long layerVersion(int dataVersion) {
+        return (long) dataVersion << 32 | (viewVersion & 0xFFFFFFFFL);
+    }
 
-                canvas.drawRRect(RRect.makeXYWH((float) pos1_cross.x - 2, (float) pos1_cross.y - 2, POINT_SIZE * 2, POINT_SIZE * 2, 2), p);
-                canvas.drawRRect(RRect.makeXYWH((float) pos2_cross.x - 2, (float) pos2_cross.y - 2, POINT_SIZE * 2, POINT_SIZE * 2, 2), p);
-            }
+    /**
+     * Посчитать точки в видимой области; кол-во пересчитывается, только
+     * когда меняются точки или видимая область
+     *
+     * @return кол-во видимых точек
+     */
+    private int countVisible() {
+        long key = layerVersion(pointsVersion);
+        if (key != visibleVersion) {
+            visibleCount = pointGrid.count(viewCS.getMin().x, viewCS.getMin().y, viewCS.getMax().x, viewCS.getMax().y);
+            visibleVersion = key;
+        }
+        return visibleCount;
+    }
+
+    /**
+     * Рисование видимых точек одним вызовом canvas.drawPoints: квадрат точки -
+     * это конец нулевого отрезка с квадратным концом ширины 2 * POINT_SIZE
+     *
+     * @param canvas   область рисования
+     * @param windowCS СК окна
+     */
+    private void renderPoints(Canvas canvas, CoordinateSystem2i windowCS) {
+        int windowSizeX = windowCS.getSize().x - 1, windowSizeY = windowCS.getSize().y - 1;
+        double minX = viewCS.getMin().x, minY = viewCS.getMin().y;
+        double sizeX = viewCS.getSize().x, sizeY = viewCS.getSize().y;
+        // точки чуть за краем видимой области тоже видны частично
+        double marginX = POINT_SIZE * sizeX / Math.max(windowSizeX, 1);
+        double marginY = POINT_SIZE * sizeY / Math.max(windowSizeY, 1);
+        int n = pointGrid.query(minX - marginX, minY - marginY, viewCS.getMax().x + marginX, viewCS.getMax().y + marginY);
+        drawnPoints = n;
+        if (n == 0)
+            return;
+        int[] visible = pointGrid.getResult();
+        // drawPoints рисует весь массив, поэтому длина буфера - ровно n точек;
+        // слой записывается заново только при изменении точек или видимой области,
+        // так что буфер пересоздаётся не каждый кадр
+        if (pointBuffer.length != n * 2)
+            pointBuffer = new float[n * 2];
+        // то же преобразование, что и в CoordinateSystem2i.getCoords, но без делений и Vector2i на точку
+        getTransform(windowCS).toWindow(points.xs(), points.ys(), visible, n, pointBuffer);
+        canvas.drawPoints(pointBuffer, Paints.stroke(Paints.DEFAULT_COLOR, POINT_SIZE * 2, PaintStrokeCap.SQUARE));
+    }
+
+    /**
+     * Рисование прямоугольного куска задачи для экспорта картинки. Картинка
+     * целиком соответствует видимой области задачи, а рисуется только кусок
+     * left, top, width, height; точки за пределами куска отбрасываются сеткой.
+     * Слои и карта плотности не используются: каждая точка рисуется квадратом
+     *
+     * @param canvas  область рисования размером с кусок
+     * @param imageCS СК всей картинки
+     * @param left    левый край куска в картинке
+     * @param top     верхний край куска в картинке
+     * @param width   ширина куска
+     * @param height  высота куска
+     */
+    public void renderTile(Canvas canvas, CoordinateSystem2i imageCS, int left, int top, int width, int height) {
+        canvas.save();
+        canvas.translate(-left, -top);
+        Transform2d tileTransform = imageCS.getTransform(viewCS);
+        // точки чуть за краем куска тоже видны частично
+        double x1 = tileTransform.taskX(left - POINT_SIZE), x2 = tileTransform.taskX(left + width + POINT_SIZE);
+        double y1 = tileTransform.taskY(top - POINT_SIZE), y2 = tileTransform.taskY(top + height + POINT_SIZE);
+        int n = pointGrid.query(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+        if (n > 0) {
+            float[] tilePoints = new float[n * 2];
+            tileTransform.toWindow(points.xs(), points.ys(), pointGrid.getResult(), n, tilePoints);
+            canvas.drawPoints(tilePoints, Paints.stroke(Paints.DEFAULT_COLOR, POINT_SIZE * 2, PaintStrokeCap.SQUARE));
         }
+        if (triangle != null)
+            triangle.render(canvas, imageCS, viewCS);
+        if (solved && maxLenght != 0)
+            renderAnswer(canvas, imageCS, Paints.fill(Paints.DEFAULT_COLOR), pos1_answer, pos2_answer, pos1_cross, pos2_cross);
         canvas.restore();
     }
 
+    /**
+     * Рисование отрезка ответа
+     *
+     * @param canvas   область рисования
+     * @param windowCS СК окна
+     * @param p        перо
+     * @param pos1     первая точка ответа
+     * @param pos2     вторая точка ответа
+     * @param cross1   первый конец отрезка внутри треугольника
+     * @param cross2   второй конец отрезка внутри треугольника
+     */
+    private void renderAnswer(Canvas canvas, CoordinateSystem2i windowCS, Paint p,
+                              Vector2d pos1, Vector2d pos2, Vector2d cross1, Vector2d cross2) {
+        // рисуем прямую через точки в ответе
+        Line lineAnswer = new Line(pos1, pos2);
+        lineAnswer.render(canvas, windowCS, viewCS);
+
+        // концы отрезка переводим в СК окна
+        Transform2d transform = getTransform(windowCS);
+        Vector2i windowCross1 = transform.toWindow(cross1);
+        Vector2i windowCross2 = transform.toWindow(cross2);
+        canvas.drawRRect(RRect.makeXYWH(windowCross1.x - POINT_SIZE, windowCross1.y - POINT_SIZE, POINT_SIZE * 2, POINT_SIZE * 2, 2), p);
+        canvas.drawRRect(RRect.makeXYWH(windowCross2.x - POINT_SIZE, windowCross2.y - POINT_SIZE, POINT_SIZE * 2, POINT_SIZE * 2, 2), p);
+    }
+
+    /**
+     * координаты точек в СК окна для рисования, x и y через одну;
+     * переиспользуется, пока не меняется кол-во видимых точек
+     */
+    private float[] pointBuffer = new float[0];
+    /**
+     * концы лучшего отрезка на данный момент и его пересечения с треугольником
+     * для рисования во время решения; переиспользуются между кадрами
+     */
+    private final Vector2d bestPos1 = new Vector2d(), bestPos2 = new Vector2d();
+    private final Vector2d bestCross1 = new Vector2d(), bestCross2 = new Vector2d();
+    /**
+     * кол-во точек в записанном слое точек
+     */
+    private int drawnPoints;
+    /**
+     * записанный слой точек
+     */
+    private final PictureLayer pointsLayer = new PictureLayer();
+    /**
+     * записанный слой треугольника
+     */
+    private final PictureLayer triangleLayer = new PictureLayer();
+    /**
+     * карта плотности точек
+     */
+    private final DensityGrid densityGrid = new DensityGrid();
+    /**
+     * сетка для поиска видимых точек
+     */
+    private final PointGrid pointGrid;
+    /**
+     * видимая область задачи: меняется при масштабировании и сдвиге,
+     * СК задачи ownCS при этом остаётся прежней
+     */
+    private final CoordinateSystem2d viewCS;
+    /**
+     * Номер версии видимой области
+     */
+    private int viewVersion;
+    /**
+     * версия точек и видимой области, для которой посчитано visibleCount
+     */
+    private long visibleVersion = -1;
+    /**
+     * кол-во видимых точек
+     */
+    private int visibleCount;
+    /**
+     * преобразование между видимой областью и СК окна
+     */
+    private Transform2d transform;
+    /**
+     * СК окна, для которой построено transform
+     */
+    private CoordinateSystem2i transformWindowCS;
+    /**
+     * версия видимой области, для которой построено transform
+     */
+    private int transformViewVersion;
+
+    /**
+     * Получить преобразование между видимой областью и СК окна; оно строится
+     * заново, только когда меняется СК окна или видимая область
+     *
+     * @param windowCS СК окна
+     * @return преобразование
+     */
+    private Transform2d getTransform(CoordinateSystem2i windowCS) {
+        if (transform == null || windowCS != transformWindowCS || viewVersion != transformViewVersion) {
+            transform = windowCS.getTransform(viewCS);
+            transformWindowCS = windowCS;
+            transformViewVersion = viewVersion;
+        }
+        return transform;
+    }
+
+    /**
+     * Масштабировать видимую область относительно точки под курсором
+     *
+     * @param pos    положение мыши относительно панели
+     * @param factor во сколько раз увеличить видимую область, меньше 1 - приближение
+     */
+    public void zoom(Vector2i pos, double factor) {
+        if (lastWindowCS == null)
+            return;
+        // не даём видимой области выродиться или стать слишком большой
+        double scale = Math.max(MIN_VIEW_SCALE, Math.min(MAX_VIEW_SCALE, viewCS.getSize().x * factor / ownCS.getSize().x));
+        double k = scale * ownCS.getSize().x / viewCS.getSize().x;
+        // точка под курсором остаётся на месте
+        Vector2d anchor = getTransform(lastWindowCS).toTask(pos);
+        viewCS.set(anchor.x - (anchor.x - viewCS.getMin().x) * k, anchor.y - (anchor.y - viewCS.getMin().y) * k,
+                viewCS.getSize().x * k, viewCS.getSize().y * k);
+        viewVersion++;
+    }
+
+    /**
+     * Сдвинуть видимую область вслед за мышью
+     *
+     * @param dx сдвиг мыши по x в пикселях
+     * @param dy сдвиг мыши по y в пикселях
+     */
+    public void pan(int dx, int dy) {
+        if (lastWindowCS == null)
+            return;
+        double shiftX = dx * viewCS.getSize().x / (lastWindowCS.getSize().x - 1);
+        double shiftY = dy * viewCS.getSize().y / (lastWindowCS.getSize().y - 1);
+        viewCS.set(viewCS.getMin().x - shiftX, viewCS.getMin().y - shiftY, viewCS.getSize().x, viewCS.getSize().y);
+        viewVersion++;
+    }
+
+    /**
+     * Получить видимую область задачи
+     *
+     * @return видимая область
+     */
+    @JsonIgnore
+    public CoordinateSystem2d getViewCS() {
+        return viewCS;
+    }
+
+    /**
+     * Вернуть видимую область к СК задачи
+     */
+    public void resetView() {
+        viewCS.set(ownCS.getMin().x, ownCS.getMin().y, ownCS.getSize().x, ownCS.getSize().y);
+        viewVersion++;
+    }
+
     /**
      * точки треугольника
      */
@@ -180,23 +479,26 @@ public class Task {
     public void click(Vector2i pos, MouseButton mouseButton) {
         if (lastWindowCS == null) return;
         // получаем положение точки на экране
-        Vector2d taskPos = ownCS.getCoords(pos, lastWindowCS);
-        // выводим положение курсора на консоль
-        System.out.println("click " + taskPos);
-        Point pointByMouse = new Point(taskPos);
+        Vector2d taskPos = getTransform(lastWindowCS).toTask(pos);
         // если левая кнопка мыши, добавляем точку
-        if (mouseButton.equals(MouseButton.PRIMARY)) points.add(pointByMouse);
+        if (mouseButton.equals(MouseButton.PRIMARY)) {
+            appendPoint(taskPos.x, taskPos.y);
+            if (journal != null)
+                journal.recordPoints(points, points.size() - 1, 1);
+        }
             // если правая кнопка мыши, добавляем треугольник по точкам на экране
         else if (mouseButton.equals(MouseButton.SECONDARY)) {
 
             // получаем положение 2-й точки на экране
-            Vector2d taskPos1 = ownCS.getCoords(pos, lastWindowCS);
+            Vector2d taskPos1 = getTransform(lastWindowCS).toTask(pos);
             if (posA == null) {
                 posA = taskPos1;
             } else if (posB == null) {
                 posB = taskPos1;
             } else {
-                triangle = new Triangle(posA, posB, taskPos1);
+                replaceTriangle(new Triangle(posA, posB, taskPos1));
+                if (journal != null)
+                    journal.recordTriangle(triangle);
                 posA = null;
                 posB = null;
             }
@@ -209,11 +511,49 @@ public class Task {
      * @param pos положение
      */
     public void addPoint(Vector2d pos) {
-        solved = false;
-        Point newPoint = new Point(pos);
-        points.add(newPoint);
+        appendPoint(pos.x, pos.y);
+        if (journal != null)
+            journal.recordPoints(points, points.size() - 1, 1);
         // Добавляем в лог запись информации
-        PanelLog.info("точка " + newPoint + " добавлена");
+        PanelLog.info("точка " + new Point(pos) + " добавлена");
+    }
+
+    /**
+     * Добавить точки одной пачкой: в журнал они попадают одной записью,
+     * а инкрементальное решение дополняется один раз
+     *
+     * @param added добавляемые точки
+     */
+    public void addPoints(PointStore added) {
+        if (added.isEmpty())
+            return;
+        int from = points.size();
+        points.addAll(added);
+        pointAdded();
+        if (journal != null)
+            journal.recordPoints(points, from, added.size());
+    }
+
+    /**
+     * Добавить точку без лога и журнала
+     *
+     * @param x координата X
+     * @param y координата Y
+     */
+    void appendPoint(double x, double y) {
+        points.add(x, y);
+        pointAdded();
+    }
+
+    /**
+     * Заменить треугольник без журнала
+     *
+     * @param newTriangle новый треугольник
+     */
+    void replaceTriangle(Triangle newTriangle) {
+        triangle = newTriangle;
+        version++;
+        triangleVersion++;
     }
 
 
@@ -222,6 +562,8 @@ public class Task {
      */
     public void cancel() {
         solved = false;
+        extendScheduled = false;
+        cancelSolve();
     }
 
 
@@ -239,6 +581,7 @@ public class Task {
         // после нам останется только перевести координаты на решётке
         // в координаты СК задачи
         CoordinateSystem2i addGrid = new CoordinateSystem2i(30, 30);
+        int from = points.size();
 
         // повторяем заданное количество раз
         for (int i = 0; i < cnt; i++) {
@@ -247,8 +590,12 @@ public class Task {
             // получаем координаты в СК задачи
             Vector2d pos = ownCS.getCoords(gridPos, addGrid);
             // сработает примерно в половине случаев
-            addPoint(pos);
+            appendPoint(pos.x, pos.y);
+            PanelLog.info("точка " + new Point(pos) + " добавлена");
         }
+        // в журнал все точки попадают одной записью
+        if (journal != null)
+            journal.recordPoints(points, from, points.size() - from);
     }
 
 
@@ -268,7 +615,9 @@ public class Task {
         Vector2d tA = ownCS.getRandomCoords();
         Vector2d tB = ownCS.getRandomCoords();
         Vector2d tC = ownCS.getRandomCoords();
-        triangle = new Triangle(tA, tB, tC);
+        replaceTriangle(new Triangle(tA, tB, tC));
+        if (journal != null)
+            journal.recordTriangle(triangle);
     }
 
 
@@ -287,7 +636,10 @@ public class Task {
             tPosB = new Vector2d(x, y);
         } else {
             Vector2d posC = new Vector2d(x, y);
-            triangle = new Triangle(tPosA, tPosB, posC);
+            replaceTriangle(new Triangle(tPosA, tPosB, posC));
+            // в журнал попадает только готовый треугольник
+            if (journal != null)
+                journal.recordTriangle(triangle);
             tPosA = null;
             tPosB = null;
         }
@@ -372,80 +724,397 @@ public class Task {
     }
 
 
+    /**
+     * Восстановить сохранённый ответ задачи
+     *
+     * @param pos1   первая точка ответа
+     * @param pos2   вторая точка ответа
+     * @param cross1 первый конец отрезка внутри треугольника
+     * @param cross2 второй конец отрезка внутри треугольника
+     * @param length длина отрезка
+     */
+    void restoreAnswer(Vector2d pos1, Vector2d pos2, Vector2d cross1, Vector2d cross2, double length) {
+        lenghtBiggerMax(pos1, pos2, cross1, cross2, length);
+        solved = true;
+    }
+
+    /**
+     * Снимок задачи для записи в другом потоке. Точки делят массивы
+     * с задачей (PointStore.snapshot), а треугольник и точки ответа
+     * только заменяются целиком, поэтому снимок делается за время,
+     * не зависящее от кол-ва точек. Видимая область копируется, чтобы
+     * снимок можно было и нарисовать
+     *
+     * @return снимок
+     */
+    Task snapshot() {
+        Task copy = new Task(ownCS, points.snapshot(), lines == null ? null : new ArrayList<>(lines));
+        copy.viewCS.set(viewCS.getMin().x, viewCS.getMin().y, viewCS.getSize().x, viewCS.getSize().y);
+        copy.triangle = triangle;
+        copy.solved = solved;
+        copy.lenghtBiggerMax(pos1_answer, pos2_answer, pos1_cross, pos2_cross, maxLenght);
+        return copy;
+    }
+
     /**
      * Максимальная длина отрезка внутри треугольника
      */
     double maxLenght = 0;
 
 
+    /**
+     * Способ решения задачи
+     */
+    public enum SolveMode {
+        /**
+         * последовательный перебор всех пар
+         */
+        SEQUENTIAL("Перебор"),
+        /**
+         * параллельный перебор всех пар
+         */
+        PARALLEL("Параллельный"),
+        /**
+         * перебор неупорядоченных пар без повторных прямых
+         */
+        DEDUP("Без повторов"),
+        /**
+         * ветви и границы по направлениям прямых
+         */
+        ANGULAR("Ветви и границы"),
+        /**
+         * дополнение прошлого ответа парами с новыми точками
+         */
+        INCREMENTAL("Инкрементальный"),
+        /**
+         * приближённый перебор с верхней оценкой оптимума
+         */
+        APPROXIMATE("Приближённый");
+
+        /**
+         * название для панели управления
+         */
+        @Getter
+        private final String title;
+
+        /**
+         * Конструктор способа решения
+         *
+         * @param title название
+         */
+        SolveMode(String title) {
+            this.title = title;
+        }
+
+        /**
+         * Следующий способ решения (по кругу)
+         *
+         * @return способ решения
+         */
+        public SolveMode next() {
+            SolveMode[] modes = values();
+            return modes[(ordinal() + 1) % modes.length];
+        }
+    }
+
+    /**
+     * Способ решения задачи
+     */
+    @JsonIgnore
+    @Getter
+    @Setter
+    private SolveMode solveMode = SolveMode.SEQUENTIAL;
+
+
     /**
      * решение задачи
      */
     public void solve() {
-        //количество точек
-        int numberPoints = points.size();
-        // вектора вершин треугольника
-        posA = triangle.pos1;
-        posB = triangle.pos2;
-        posC = triangle.pos3;
-        // прямые, содержащие отрезки треугольника (заданы двумя точками)
-        Line lineAB = new Line(posA, posB);
-        Line lineBC = new Line(posB, posC);
-        Line lineAC = new Line(posA, posC);
-        // Длина отрезка внутри треугольника
-        double lenght = 0;
-        // перебор всех пар точек
-        for(int i = 0; i < numberPoints; i++) {
-            for(int j = 0; j < numberPoints; j++) {
-                // две точки
-                Vector2d posM = points.get(i).getPos();
-                Vector2d posN = points.get(j).getPos();
-                // прямая через них
-                if (posM != posN) {
-                    Line line = new Line(posM, posN);
-                    // точки пересечения со сторонами треугольника
-                    Vector2d crossAB = null;
-                    Vector2d crossBC = null;
-                    Vector2d crossAC = null;
-
-                    // смотрим, пересекает ли прямая отрезки треугольника
-                    if (crossLineSegment(line, lineAB, posA, posB)) {
-                        crossAB = crossLine(line, lineAB);
-                    }
-                    if (crossLineSegment(line, lineBC, posB, posC)) {
-                        crossBC = crossLine(line, lineBC);
-                    }
-                    if (crossLineSegment(line, lineAC, posA, posC)) {
-                        crossAC = crossLine(line, lineAC);
-                    }
-
-                    // вектор отрезка внутри треугольника
-                    Vector2d lineSegment = null;
-                    // если есть два пересечения со сторонами треугольника
-                    if (crossAB != null && crossBC != null) {
-                        lineSegment = Vector2d.subtract(crossAB, crossBC);
-                        lenght = lineSegment.length();
-                        // если отрезок больше максимального
-                        if (lenght > maxLenght) {
-                            lenghtBiggerMax(posM, posN, crossAB, crossBC, lenght);
-                        }
-                    } else if (crossBC != null && crossAC != null) {
-                        lineSegment = Vector2d.subtract(crossBC, crossAC);
-                        lenght = lineSegment.length();
-                        if (lenght > maxLenght) {
-                            lenghtBiggerMax(posM, posN, crossBC, crossAC, lenght);
-                        }
-
-                    } else if (crossAB != null && crossAC != null) {
-                        lineSegment = Vector2d.subtract(crossAB, crossAC);
-                        lenght = lineSegment.length();
-                        if (lenght > maxLenght) {
-                            lenghtBiggerMax(posM, posN, crossAB, crossAC, lenght);
-                        }
-                    }
-                }
+        // без треугольника решать нечего
+        if (triangle == null) {
+            PanelLog.warning("треугольник не задан");
+            return;
+        }
+        ChordAnswer base = incrementalValid(triangle, points.size()) ? incrementalAnswer : null;
+        ChordAnswer answer = compute(solveMode, triangle, points, base, incrementalSize, new SolveMonitor(), null);
+        if (solveMode == SolveMode.INCREMENTAL)
+            rememberIncremental(answer, triangle, points.size());
+        applyAnswer(answer);
+        if (solveMode == SolveMode.APPROXIMATE)
+            logBound(answer);
+    }
+
+    /**
+     * Запустить решение задачи в отдельном потоке. Решается копия точек;
+     * если до конца решения задача изменится, ответ будет отброшен.
+     * Пока решение идёт, renderTask рисует лучший отрезок на данный момент
+     *
+     * @param timeLimit лимит времени в миллисекундах, 0 - без лимита;
+     *                  по его истечении ответом становится лучший найденный отрезок
+     * @param onFinish  обработчик завершения, вызывается в потоке интерфейса
+     * @return запущенное решение, null, если решать нечего
+     */
+    public SolveJob solveAsync(long timeLimit, Runnable onFinish) {
+        // без треугольника решать нечего
+        if (triangle == null) {
+            PanelLog.warning("треугольник не задан");
+            return null;
+        }
+        if (job != null)
+            job.cancel();
+        solved = false;
+        jobTimeLimit = timeLimit;
+        jobOnFinish = onFinish;
+        SolveMode mode = solveMode;
+        Triangle jobTriangle = triangle;
+        // снимок за O(1): поток интерфейса не копирует точки перед каждым решением
+        PointStore snapshot = points.snapshot();
+        int startVersion = version;
+        // ответ прошлого инкрементального решения дополняется в копии,
+        // чтобы не трогать его из другого потока
+        ChordAnswer base = incrementalValid(jobTriangle, snapshot.size()) ? incrementalAnswer.copy() : null;
+        int baseSize = incrementalSize;
+
+        SolveMonitor monitor = new SolveMonitor(timeLimit);
+        monitor.setOnProgress(percent -> uiThread.accept(() -> PanelLog.info("решено " + percent + "% пар")));
+        // приближённое решение сообщает о каждом раунде уточнения
+        Consumer<ChordAnswer> onRound = round -> uiThread.accept(() -> logBound(round));
+        SolveJob started = new SolveJob(jobTriangle, snapshot, monitor,
+                () -> compute(mode, jobTriangle, snapshot, base, baseSize, monitor, onRound));
+        job = started;
+        started.getFuture().whenComplete((answer, error) -> uiThread.accept(() -> {
+            finishJob(started, mode, startVersion, answer, error);
+            onFinish.run();
+        }));
+        return started;
+    }
+
+    /**
+     * Завершить решение в отдельном потоке
+     *
+     * @param finished     завершённое решение
+     * @param mode         способ решения
+     * @param startVersion версия задачи в начале решения
+     * @param answer       лучший отрезок, null при ошибке
+     * @param error        ошибка, null, если решение завершилось
+     */
+    private void finishJob(SolveJob finished, SolveMode mode, int startVersion, ChordAnswer answer, Throwable error) {
+        // решение уже заменено другим
+        if (job != finished)
+            return;
+        job = null;
+        if (finished.getMonitor().isCancelled()) {
+            PanelLog.info("решение отменено");
+            return;
+        }
+        if (error != null) {
+            PanelLog.error("ошибка решения\n" + error);
+            return;
+        }
+        if (version != startVersion) {
+            PanelLog.warning("задача изменилась во время решения, ответ отброшен");
+            return;
+        }
+        if (finished.isTimedOut())
+            PanelLog.warning("лимит времени истёк, показан лучший найденный отрезок");
+        else if (mode == SolveMode.INCREMENTAL)
+            rememberIncremental(answer, finished.getTriangle(), finished.getPoints().size());
+        applyAnswer(answer);
+        PanelLog.success("задача решена, длина отрезка " + maxLenght);
+    }
+
+    /**
+     * Вывести в лог найденную длину и верхнюю оценку оптимума
+     *
+     * @param answer ответ приближённого решения
+     */
+    private static void logBound(ChordAnswer answer) {
+        PanelLog.info(String.format("длина отрезка %.6f, оптимум не длиннее %.6f",
+                Math.sqrt(answer.lengthSq), Math.sqrt(answer.upperBoundSq)));
+    }
+
+    /**
+     * Отменить решение в отдельном потоке, если оно идёт
+     */
+    public void cancelSolve() {
+        if (job != null)
+            job.cancel();
+    }
+
+    /**
+     * Получить номер версии задачи, растущий при каждом изменении
+     * точек или треугольника
+     *
+     * @return номер версии
+     */
+    @JsonIgnore
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Проверить, идёт ли решение в отдельном потоке
+     *
+     * @return флаг
+     */
+    @JsonIgnore
+    public boolean isSolving() {
+        return job != null;
+    }
+
+    /**
+     * Найти лучший отрезок заданным способом
+     *
+     * @param mode     способ решения
+     * @param triangle треугольник
+     * @param points   точки
+     * @param base     ответ прошлого инкрементального решения, дополняется на месте,
+     *                 null, если его нет
+     * @param baseSize кол-во точек, учтённых в base
+     * @param monitor  наблюдение за ходом решения
+     * @param onRound  обработчик раунда приближённого решения, может быть null
+     * @return лучший отрезок
+     */
+    static ChordAnswer compute(
+            SolveMode mode, Triangle triangle, PointStore points, ChordAnswer base, int baseSize,
+            SolveMonitor monitor, Consumer<ChordAnswer> onRound
+    ) {
+        return switch (mode) {
+            case SEQUENTIAL -> PairSolver.solveSequential(triangle, points, monitor);
+            case PARALLEL -> PairSolver.solveParallel(triangle, points, monitor);
+            case DEDUP -> PairSolver.solveDedup(triangle, points, monitor);
+            case ANGULAR -> AngularSolver.solve(triangle, points, monitor);
+            case INCREMENTAL -> {
+                // точки удалены или треугольник заменён: считаем заново
+                if (base == null)
+                    yield PairSolver.solveParallel(triangle, points, monitor);
+                PairSolver.extend(triangle, points, base, baseSize, monitor);
+                yield base;
             }
+            case APPROXIMATE -> ApproximateSolver.solve(triangle, points, ApproximateSolver.DEFAULT_EPSILON, monitor, onRound);
+        };
+    }
+
+    /**
+     * решение в отдельном потоке, null, если его нет
+     */
+    private SolveJob job;
+    /**
+     * дополнение инкрементального ответа в отдельном потоке, null, если его нет
+     */
+    private SolveJob extendJob;
+    /**
+     * флаг, что дополнение ответа ждёт очереди потока интерфейса
+     */
+    private boolean extendScheduled;
+    /**
+     * лимит времени последнего решения в отдельном потоке, мс
+     */
+    private long jobTimeLimit;
+    /**
+     * обработчик завершения последнего решения в отдельном потоке
+     */
+    private Runnable jobOnFinish = () -> {
+    };
+    /**
+     * Номер версии задачи, растёт при каждом изменении точек или треугольника
+     */
+    private int version;
+    /**
+     * Номер версии точек, по нему перезаписывается слой точек
+     */
+    private int pointsVersion;
+    /**
+     * Номер версии треугольника, по нему перезаписывается слой треугольника
+     */
+    private int triangleVersion;
+
+    /**
+     * Ответ инкрементального решения, null, если его нужно пересчитать заново
+     */
+    private ChordAnswer incrementalAnswer;
+    /**
+     * кол-во точек, учтённых в инкрементальном ответе
+     */
+    private int incrementalSize;
+    /**
+     * треугольник, для которого получен инкрементальный ответ
+     */
+    private Triangle incrementalTriangle;
+
+    /**
+     * Проверить, можно ли дополнить инкрементальный ответ: после него
+     * точки только добавлялись, а треугольник не менялся
+     *
+     * @param triangle треугольник
+     * @param size     кол-во точек
+     * @return флаг
+     */
+    private boolean incrementalValid(Triangle triangle, int size) {
+        return incrementalAnswer != null && incrementalTriangle == triangle && incrementalSize <= size;
+    }
+
+    /**
+     * Запомнить инкрементальный ответ
+     *
+     * @param answer   ответ
+     * @param triangle треугольник
+     * @param size     кол-во учтённых точек
+     */
+    private void rememberIncremental(ChordAnswer answer, Triangle triangle, int size) {
+        incrementalAnswer = answer;
+        incrementalTriangle = triangle;
+        incrementalSize = size;
+    }
+
+    /**
+     * Обработать добавление точки: решение сбрасывается, а в инкрементальном
+     * режиме решённая задача дополняет ответ в отдельном потоке. Дополнение
+     * ставится в очередь потока интерфейса, поэтому пачка точек, добавленных
+     * в одном обработчике, дополняет ответ один раз
+     */
+    private void pointAdded() {
+        version++;
+        pointsVersion++;
+        boolean extending = solved || job != null && job == extendJob;
+        if (extending && !extendScheduled && solveMode == SolveMode.INCREMENTAL && triangle != null) {
+            extendScheduled = true;
+            uiThread.accept(this::extendAnswer);
         }
-        solved = true;
+        solved = false;
+    }
+
+    /**
+     * Дополнить инкрементальный ответ новыми точками в отдельном потоке
+     * с тем же лимитом времени и обработчиком завершения, что и у последнего
+     * решения, поэтому его можно отменить так же, как обычное решение
+     */
+    private void extendAnswer() {
+        // пока дополнение ждало очереди, решение могли сбросить, а задачу изменить
+        if (!extendScheduled || solveMode != SolveMode.INCREMENTAL || triangle == null
+                || !incrementalValid(triangle, points.size()))
+            return;
+        extendScheduled = false;
+        extendJob = solveAsync(jobTimeLimit, jobOnFinish);
+    }
+
+    /**
+     * Применить найденный отрезок как ответ задачи
+     *
+     * @param answer лучший отрезок
+     */
+    void applyAnswer(ChordAnswer answer) {
+        maxLenght = 0;
+        if (answer.isFound()) {
+            // концы отрезка считаем только для ответа
+            ChordKernel kernel = new ChordKernel(triangle);
+            Vector2d pos1 = points.get(answer.i);
+            Vector2d pos2 = points.get(answer.j);
+            kernel.clip(pos1.x, pos1.y, pos2.x, pos2.y);
+            lenghtBiggerMax(pos1, pos2,
+                    new Vector2d(kernel.x1, kernel.y1), new Vector2d(kernel.x2, kernel.y2),
+                    Math.sqrt(answer.lengthSq));
         }
-    }
\ No newline at end of file
+        solved = true;
+    }
+}
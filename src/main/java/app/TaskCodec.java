@@ -0,0 +1,281 @@
+package app;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import misc.Vector2d;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Потоковое чтение и запись задачи в формате conf.json
+ * ({"@class":"app.Task","ownCS":..,"points":[{"pos":..}],"lines":..,"solved":..,"triangle":..})
+ * поверх JsonParser и JsonGenerator Jackson без привязки объектов:
+ * точки читаются сразу в массивы координат PointStore, поэтому, кроме
+ * самих массивов, чтение файла на миллионы точек занимает постоянную память.
+ * Формат совпадает с тем, что пишет ObjectMapper, так что файлы, записанные
+ * раньше, читаются, а новые файлы читает и ObjectMapper.
+ * Файлы с расширением BinaryTaskCodec.EXTENSION читаются и пишутся
+ * в двоичном формате.
+ */
+public class TaskCodec {
+    /**
+     * имя класса задачи в поле @class
+     */
+    private static final String TASK_CLASS = Task.class.getName();
+    /**
+     * фабрика парсеров и генераторов, потокобезопасна
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Прочитать задачу из файла; формат выбирается по расширению
+     *
+     * @param file файл задачи
+     * @return задача
+     * @throws IOException ошибка чтения или формата
+     */
+    public static Task read(Path file) throws IOException {
+        if (BinaryTaskCodec.isBinary(file))
+            return BinaryTaskCodec.read(file);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Прочитать задачу из потока
+     *
+     * @param in поток
+     * @return задача
+     * @throws IOException ошибка чтения или формата
+     */
+    public static Task read(InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(p, "ожидался объект задачи");
+            CoordinateSystem2d ownCS = null;
+            PointStore points = null;
+            ArrayList<Line> lines = null;
+            Triangle triangle = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "@class" -> {
+                        if (!TASK_CLASS.equals(p.getText()))
+                            throw new JsonParseException(p, "в файле не задача, а " + p.getText());
+                    }
+                    case "ownCS" -> {
+                        Vector2d[] corners = readVectors(p, "min", "max");
+                        if (corners[0] == null || corners[1] == null)
+                            throw new JsonParseException(p, "СК задачи задана неверно");
+                        ownCS = new CoordinateSystem2d(corners[0], corners[1]);
+                    }
+                    case "points" -> {
+                        if (value == JsonToken.START_ARRAY)
+                            points = PointStore.read(p);
+                    }
+                    case "lines" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            lines = new ArrayList<>();
+                            while (p.nextToken() == JsonToken.START_OBJECT) {
+                                Vector2d[] ends = readObjectVectors(p, "pos1", "pos2");
+                                requireAll(p, ends, "прямая задана не полностью");
+                                lines.add(new Line(ends[0], ends[1]));
+                            }
+                        }
+                    }
+                    case "triangle" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            Vector2d[] vertices = readObjectVectors(p, "pos1", "pos2", "pos3");
+                            requireAll(p, vertices, "треугольник задан не полностью");
+                            triangle = new Triangle(vertices[0], vertices[1], vertices[2]);
+                        }
+                    }
+                    // ответ не сохраняется, поэтому флаг решения не читается
+                    default -> p.skipChildren();
+                }
+            }
+            if (ownCS == null)
+                throw new JsonParseException(p, "в файле нет СК задачи");
+            Task task = new Task(ownCS, points, lines);
+            task.triangle = triangle;
+            return task;
+        }
+    }
+
+    /**
+     * Прочитать объект с векторами-полями; парсер стоит на начале объекта
+     *
+     * @param p     парсер
+     * @param names имена полей-векторов
+     * @return векторы в порядке имён, null для отсутствующих
+     * @throws IOException ошибка чтения
+     */
+    private static Vector2d[] readVectors(JsonParser p, String... names) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException(p, "ожидался объект");
+        return readObjectVectors(p, names);
+    }
+
+    /**
+     * Прочитать поля-векторы текущего объекта до его конца
+     *
+     * @param p     парсер, стоящий на начале объекта
+     * @param names имена полей-векторов
+     * @return векторы в порядке имён, null для отсутствующих
+     * @throws IOException ошибка чтения
+     */
+    private static Vector2d[] readObjectVectors(JsonParser p, String... names) throws IOException {
+        Vector2d[] vectors = new Vector2d[names.length];
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            int index = -1;
+            for (int i = 0; i < names.length; i++)
+                if (names[i].equals(field))
+                    index = i;
+            if (index >= 0 && p.currentToken() == JsonToken.START_OBJECT)
+                vectors[index] = readVector(p);
+            else
+                p.skipChildren();
+        }
+        return vectors;
+    }
+
+    /**
+     * Проверить, что заданы все векторы объекта
+     *
+     * @param p       парсер
+     * @param vectors векторы
+     * @param message сообщение об ошибке
+     * @throws JsonParseException какого-то вектора нет
+     */
+    private static void requireAll(JsonParser p, Vector2d[] vectors, String message) throws JsonParseException {
+        for (Vector2d vector : vectors)
+            if (vector == null)
+                throw new JsonParseException(p, message);
+    }
+
+    /**
+     * Прочитать вектор {"x":..,"y":..}; парсер стоит на начале объекта
+     *
+     * @param p парсер
+     * @return вектор
+     * @throws IOException ошибка чтения
+     */
+    private static Vector2d readVector(JsonParser p) throws IOException {
+        double x = 0, y = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String coord = p.getCurrentName();
+            p.nextToken();
+            if ("x".equals(coord))
+                x = p.getValueAsDouble();
+            else if ("y".equals(coord))
+                y = p.getValueAsDouble();
+            else
+                p.skipChildren();
+        }
+        return new Vector2d(x, y);
+    }
+
+    /**
+     * Записать задачу в файл; формат выбирается по расширению
+     *
+     * @param task задача
+     * @param file файл
+     * @throws IOException ошибка записи
+     */
+    public static void write(Task task, Path file) throws IOException {
+        if (BinaryTaskCodec.isBinary(file)) {
+            BinaryTaskCodec.write(task, file);
+            return;
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            write(task, out);
+        }
+    }
+
+    /**
+     * Записать задачу в поток
+     *
+     * @param task задача
+     * @param out  поток; не закрывается
+     * @throws IOException ошибка записи
+     */
+    public static void write(Task task, OutputStream out) throws IOException {
+        try (JsonGenerator gen = FACTORY.createGenerator(out)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            gen.writeStartObject();
+            gen.writeStringField("@class", TASK_CLASS);
+            gen.writeFieldName("ownCS");
+            gen.writeStartObject();
+            writeVector(gen, "min", task.getOwnCS().getMin());
+            writeVector(gen, "max", task.getOwnCS().getMax());
+            gen.writeEndObject();
+            gen.writeFieldName("points");
+            task.getPoints().write(gen);
+            gen.writeFieldName("lines");
+            if (task.getLines() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray();
+                for (Line line : task.getLines()) {
+                    gen.writeStartObject();
+                    writeVector(gen, "pos1", line.getPos1());
+                    writeVector(gen, "pos2", line.getPos2());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeBooleanField("solved", task.isSolved());
+            gen.writeFieldName("triangle");
+            Triangle triangle = task.getTriangle();
+            if (triangle == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartObject();
+                writeVector(gen, "pos1", triangle.getPos1());
+                writeVector(gen, "pos2", triangle.getPos2());
+                writeVector(gen, "pos3", triangle.getPos3());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Записать поле-вектор
+     *
+     * @param gen  генератор
+     * @param name имя поля
+     * @param pos  вектор
+     * @throws IOException ошибка записи
+     */
+    private static void writeVector(JsonGenerator gen, String name, Vector2d pos) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeStartObject();
+        gen.writeNumberField("x", pos.x);
+        gen.writeNumberField("y", pos.y);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private TaskCodec() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -0,0 +1,647 @@
+package app;
+
+import io.github.humbleui.jwm.App;
+import lombok.Getter;
+import misc.PointStore;
+import misc.Vector2d;
+import panels.PanelLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений задачи: файл рядом с файлом задачи (имя задачи
+ * с EXTENSION), в который дописываются добавления точек, замены
+ * треугольника и очистки. Сохранение пишет полный снимок задачи, а между
+ * сохранениями на диск попадают только изменения, поэтому цена записи
+ * зависит от размера изменения, а не от кол-ва точек. Записи копятся
+ * в памяти и пачками раз в FLUSH_MS дописываются в потоке записи
+ * TaskSaver с одним fsync на пачку. Когда журнал становится больше
+ * двоичного снимка, задача сжимается: пишется новый снимок, и журнал
+ * начинается заново. При загрузке к снимку применяются записи журнала.
+ * <pre>
+ * заголовок, HEADER_SIZE байт: "TSKJ", версия (int),
+ *   размер (long) и CRC32 (int) файла снимка, к которому относится журнал
+ * записи: код (байт), данные, CRC32 кода и данных (int)
+ *   POINTS: кол-во точек (int), затем x, y каждой точки
+ *   TRIANGLE: pos1, pos2, pos3
+ *   CLEAR: без данных
+ * </pre>
+ * Точки треугольника, заданные по одной, попадают в журнал только
+ * готовым треугольником: недостроенного треугольника нет и в снимке.
+ * Все числа в порядке little-endian. Журнал от другого снимка
+ * не применяется, а оборванные при сбое записи отбрасываются по CRC.
+ * Пока сжатие не закончено, в прежний файл журнала пишутся только
+ * записи до снимка: иначе при сбое между заменой снимка и журнала
+ * записи после снимка пропали бы вместе с прежним журналом.
+ * Смещения записей ниже считаются от начала всех записей журнала
+ * этого объекта, а не от начала файла.
+ */
+public class TaskJournal {
+    /**
+     * расширение файла журнала, добавляется к имени файла задачи
+     */
+    public static final String EXTENSION = ".journal";
+    /**
+     * подпись журнала
+     */
+    private static final int MAGIC = 'T' | 'S' << 8 | 'K' << 16 | 'J' << 24;
+    /**
+     * версия формата журнала
+     */
+    private static final int VERSION = 2;
+    /**
+     * размер заголовка
+     */
+    private static final int HEADER_SIZE = 20;
+    /**
+     * коды записей
+     */
+    private static final byte POINTS = 1, TRIANGLE = 3, CLEAR = 4;
+    /**
+     * наибольшее кол-во точек в одной записи
+     */
+    private static final int MAX_RECORD_POINTS = 1 << 16;
+    /**
+     * как часто записи пишутся на диск, мс
+     */
+    private static final long FLUSH_MS = 200;
+    /**
+     * размер журнала, до которого он не сжимается
+     */
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+    /**
+     * файл задачи
+     */
+    @Getter
+    private final Path taskFile;
+    /**
+     * файл журнала
+     */
+    private final Path file;
+    /**
+     * задача
+     */
+    private final Task task;
+    /**
+     * кол-во записей, применённых при загрузке
+     */
+    @Getter
+    private int replayed;
+    /**
+     * собираемая запись, используется только из потока интерфейса
+     */
+    private ByteBuffer record;
+    /**
+     * контрольная сумма собираемой записи
+     */
+    private final CRC32 crc = new CRC32();
+    /**
+     * записи в памяти: смещения от pendingStart до pendingStart + pendingSize
+     */
+    private byte[] pending = new byte[4096];
+    /**
+     * кол-во байт в памяти
+     */
+    private int pendingSize;
+    /**
+     * смещение первого байта в памяти
+     */
+    private long pendingStart;
+    /**
+     * смещение конца записей, уже лежащих в файле журнала
+     */
+    private long journalEnd;
+    /**
+     * смещение начала записей текущего файла журнала; меньше нуля,
+     * если в файле были записи до загрузки
+     */
+    private long generationStart;
+    /**
+     * смещение последнего запрошенного сжатия, -1, если сжатие не запрошено
+     */
+    private long compactCut = -1;
+    /**
+     * запись снимка последнего запрошенного сжатия
+     */
+    private CompletableFuture<Path> compaction = CompletableFuture.completedFuture(null);
+    /**
+     * флаг, что запись на диск уже запланирована
+     */
+    private boolean flushScheduled;
+    /**
+     * флаг, что журнал закрыт
+     */
+    private boolean closed;
+    /**
+     * канал файла журнала, null, если файла ещё нет; только из потока записи
+     */
+    private FileChannel channel;
+
+    /**
+     * Конструктор журнала
+     *
+     * @param task     задача
+     * @param taskFile абсолютный путь к файлу задачи
+     */
+    private TaskJournal(Task task, Path taskFile) {
+        this.task = task;
+        this.taskFile = taskFile;
+        file = journalFile(taskFile);
+    }
+
+    /**
+     * Получить файл журнала для файла задачи
+     *
+     * @param taskFile файл задачи
+     * @return файл журнала
+     */
+    public static Path journalFile(Path taskFile) {
+        return taskFile.resolveSibling(taskFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Прочитать задачу: снимок и записи журнала, если журнал относится
+     * к этому снимку. Журнал к задаче не подключается
+     *
+     * @param taskFile файл задачи
+     * @return задача
+     * @throws IOException ошибка чтения
+     */
+    public static Task read(Path taskFile) throws IOException {
+        Path target = taskFile.toAbsolutePath();
+        TaskJournal journal = new TaskJournal(TaskCodec.read(target), target);
+        if (Files.exists(journal.file)) {
+            try (FileChannel channel = FileChannel.open(journal.file, StandardOpenOption.READ)) {
+                journal.replay(channel);
+            }
+        }
+        return journal.task;
+    }
+
+    /**
+     * Загрузить задачу: снимок и записи журнала, после чего подключить
+     * к задаче журнал, в который будут дописываться её изменения
+     *
+     * @param taskFile файл задачи
+     * @return задача
+     * @throws IOException ошибка чтения
+     */
+    public static Task load(Path taskFile) throws IOException {
+        Path target = taskFile.toAbsolutePath();
+        TaskJournal journal = new TaskJournal(TaskCodec.read(target), target);
+        long end = -1;
+        if (Files.exists(journal.file)) {
+            try (FileChannel channel = FileChannel.open(journal.file, StandardOpenOption.READ)) {
+                end = journal.replay(channel);
+            }
+        }
+        if (end >= 0) {
+            // оборванный при сбое хвост отрезаем, чтобы дописывать после целых записей
+            journal.channel = FileChannel.open(journal.file, StandardOpenOption.WRITE);
+            journal.channel.truncate(end);
+            journal.channel.position(end);
+            journal.generationStart = HEADER_SIZE - end;
+        } else {
+            // журнала нет или он от другого снимка
+            journal.rewrite(new byte[0], 0, 0);
+        }
+        journal.task.setJournal(journal);
+        return journal.task;
+    }
+
+    /**
+     * Сохранить задачу: записать снимок и начать журнал заново. Если
+     * журнал задачи относится к другому файлу, он закрывается,
+     * и подключается журнал нового файла
+     *
+     * @param task задача
+     * @param file файл задачи
+     * @return future, завершающийся путём к файлу после записи снимка
+     */
+    public static CompletableFuture<Path> save(Task task, Path file) {
+        Path target = file.toAbsolutePath();
+        TaskJournal journal = task.getJournal();
+        if (journal == null || !journal.taskFile.equals(target)) {
+            if (journal != null)
+                journal.close();
+            journal = new TaskJournal(task, target);
+            task.setJournal(journal);
+        }
+        return journal.compact();
+    }
+
+    /**
+     * Применить к задаче записи журнала
+     *
+     * @param channel канал файла журнала
+     * @return смещение в файле конца последней целой записи,
+     * -1, если журнал не относится к снимку
+     * @throws IOException ошибка чтения
+     */
+    private long replay(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE)
+            return -1;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("журнал " + file + " слишком большой");
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        if (map.getInt() != MAGIC || map.getInt() != VERSION
+                || map.getLong() != Files.size(taskFile)
+                || map.getInt() != checksum(taskFile))
+            return -1;
+        int position = HEADER_SIZE;
+        while (position < size) {
+            byte op = map.get(position);
+            int length;
+            if (op == POINTS) {
+                if (position + 5 > size)
+                    break;
+                int count = map.getInt(position + 1);
+                if (count < 0 || count > MAX_RECORD_POINTS)
+                    break;
+                length = 4 + count * 2 * Double.BYTES;
+            } else if (op == TRIANGLE) {
+                length = 6 * Double.BYTES;
+            } else if (op == CLEAR) {
+                length = 0;
+            } else {
+                break;
+            }
+            int end = position + 1 + length + 4;
+            if (end > size)
+                break;
+            crc.reset();
+            crc.update(map.slice(position, 1 + length));
+            if ((int) crc.getValue() != map.getInt(position + 1 + length))
+                break;
+            map.position(position + 1);
+            apply(op, map);
+            replayed++;
+            position = end;
+        }
+        return position;
+    }
+
+    /**
+     * Применить запись к задаче
+     *
+     * @param op   код записи
+     * @param data данные записи
+     */
+    private void apply(byte op, ByteBuffer data) {
+        switch (op) {
+            case POINTS -> {
+                int count = data.getInt();
+                task.getPoints().ensureCapacity(task.getPoints().size() + count);
+                for (int i = 0; i < count; i++)
+                    task.appendPoint(data.getDouble(), data.getDouble());
+            }
+            case TRIANGLE -> task.replaceTriangle(new Triangle(getVector(data), getVector(data), getVector(data)));
+            case CLEAR -> task.clear();
+            default -> throw new IllegalArgumentException("неизвестная запись журнала " + op);
+        }
+    }
+
+    /**
+     * Прочитать вектор из буфера
+     *
+     * @param buffer буфер
+     * @return вектор
+     */
+    private static Vector2d getVector(ByteBuffer buffer) {
+        return new Vector2d(buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Записать добавление точек
+     *
+     * @param points хранилище точек
+     * @param from   индекс первой добавленной точки
+     * @param count  кол-во добавленных точек
+     */
+    void recordPoints(PointStore points, int from, int count) {
+        // большая пачка (например, импорт) уже есть в задаче: дешевле записать
+        // снимок, чем копировать её в память журнала в потоке интерфейса
+        if ((long) count * 2 * Double.BYTES > COMPACT_MIN_BYTES) {
+            synchronized (this) {
+                if (closed)
+                    return;
+            }
+            compactInBackground();
+            return;
+        }
+        for (int done = 0; done < count; done += MAX_RECORD_POINTS) {
+            int n = Math.min(MAX_RECORD_POINTS, count - done);
+            begin(POINTS);
+            record.putInt(n);
+            for (int i = from + done; i < from + done + n; i++) {
+                record.putDouble(points.getX(i));
+                record.putDouble(points.getY(i));
+            }
+            end();
+        }
+    }
+
+    /**
+     * Записать замену треугольника
+     *
+     * @param triangle новый треугольник
+     */
+    void recordTriangle(Triangle triangle) {
+        begin(TRIANGLE);
+        for (Vector2d pos : new Vector2d[]{triangle.getPos1(), triangle.getPos2(), triangle.getPos3()}) {
+            record.putDouble(pos.x);
+            record.putDouble(pos.y);
+        }
+        end();
+    }
+
+    /**
+     * Записать очистку задачи
+     */
+    void recordClear() {
+        begin(CLEAR);
+        end();
+    }
+
+    /**
+     * Начать запись
+     *
+     * @param op код записи
+     */
+    private void begin(byte op) {
+        if (record == null)
+            record = ByteBuffer.allocate(1 + 4 + MAX_RECORD_POINTS * 2 * Double.BYTES + 4).order(ByteOrder.LITTLE_ENDIAN);
+        record.clear();
+        record.put(op);
+    }
+
+    /**
+     * Закончить запись: добавить CRC и передать запись в память журнала
+     */
+    private void end() {
+        crc.reset();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        boolean schedule;
+        boolean compact;
+        synchronized (this) {
+            if (closed)
+                return;
+            if (pendingSize + record.position() > pending.length)
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + record.position()));
+            System.arraycopy(record.array(), 0, pending, pendingSize, record.position());
+            pendingSize += record.position();
+            schedule = !flushScheduled;
+            flushScheduled = true;
+            // журнал длиннее двоичного снимка читать дольше, чем снимок
+            long snapshotSize = Math.max(COMPACT_MIN_BYTES, (long) task.getPoints().size() * 2 * Double.BYTES);
+            compact = compactCut < 0 && pendingStart + pendingSize - generationStart > snapshotSize;
+        }
+        if (schedule)
+            TaskSaver.schedule(this::flush, FLUSH_MS);
+        if (compact)
+            compactInBackground();
+    }
+
+    /**
+     * Сжать журнал, сообщив в лог только об ошибке
+     */
+    private void compactInBackground() {
+        compact().whenComplete((path, error) -> {
+            if (error != null)
+                report("не получилось сжать журнал задачи", error);
+        });
+    }
+
+    /**
+     * Записать снимок задачи и начать журнал заново; вызывается из потока
+     * интерфейса. Записи, сделанные до вызова, попадают в снимок
+     *
+     * @return future, завершающийся путём к файлу задачи после записи снимка
+     */
+    public CompletableFuture<Path> compact() {
+        long cut;
+        synchronized (this) {
+            cut = pendingStart + pendingSize;
+            compactCut = cut;
+            compaction = TaskSaver.save(task, taskFile, ok -> compacted(cut, ok));
+            return compaction;
+        }
+    }
+
+    /**
+     * Обработать запись снимка; вызывается в потоке записи
+     *
+     * @param cut смещение, на котором снят снимок
+     * @param ok  флаг, записан ли снимок
+     */
+    private void compacted(long cut, boolean ok) {
+        byte[] data;
+        int offset, length;
+        synchronized (this) {
+            if (compactCut == cut)
+                compactCut = -1;
+            data = pending;
+            offset = (int) (cut - pendingStart);
+            // записи после следующего запрошенного сжатия ждут его снимка
+            length = (int) ((compactCut >= 0 ? compactCut : pendingStart + pendingSize) - cut);
+        }
+        if (!ok) {
+            // прежний журнал по-прежнему относится к снимку на диске,
+            // и в него дописываются придержанные записи
+            flush();
+            return;
+        }
+        try {
+            if (offset < 0)
+                throw new IOException("записи журнала до снимка уже отброшены");
+            // записи после снимка становятся началом нового журнала
+            rewrite(data, offset, length);
+            synchronized (this) {
+                generationStart = cut;
+                journalEnd = cut + length;
+                trim();
+            }
+        } catch (IOException e) {
+            // снимок новее журнала, поэтому журнал больше не дописывается
+            closeChannel();
+            report("не получилось начать журнал задачи заново", e);
+        }
+        synchronized (this) {
+            if (!closed)
+                return;
+        }
+        closeChannel();
+    }
+
+    /**
+     * Дописать накопленные записи в файл журнала и сбросить его на диск;
+     * вызывается в потоке записи
+     */
+    private void flush() {
+        byte[] data;
+        int offset, length;
+        long end;
+        synchronized (this) {
+            flushScheduled = false;
+            if (channel == null)
+                return;
+            data = pending;
+            // записи после запрошенного сжатия попадут в новый журнал
+            end = compactCut >= 0 ? compactCut : pendingStart + pendingSize;
+            if (end <= journalEnd)
+                return;
+            offset = (int) (journalEnd - pendingStart);
+            length = (int) (end - journalEnd);
+        }
+        // поток интерфейса только дописывает массив за pendingSize,
+        // а сдвигает его лишь trim в этом же потоке, поэтому
+        // отправляемые байты читаются без блокировки
+        try {
+            writeFully(channel, ByteBuffer.wrap(data, offset, length));
+            channel.force(false);
+            synchronized (this) {
+                journalEnd = end;
+                trim();
+            }
+        } catch (IOException e) {
+            closeChannel();
+            report("не получилось дописать журнал задачи", e);
+        }
+    }
+
+    /**
+     * Отбросить из памяти записи, которые уже лежат в файле и не нужны
+     * для запрошенного сжатия
+     */
+    private void trim() {
+        long keep = compactCut >= 0 ? Math.min(compactCut, journalEnd) : journalEnd;
+        int drop = (int) (keep - pendingStart);
+        if (drop <= 0)
+            return;
+        System.arraycopy(pending, drop, pending, 0, pendingSize - drop);
+        pendingSize -= drop;
+        pendingStart = keep;
+    }
+
+    /**
+     * Записать новый файл журнала с заголовком для текущего снимка
+     * и заданными записями и атомарно заменить им прежний
+     *
+     * @param data   массив с записями
+     * @param offset индекс первого байта записей
+     * @param length кол-во байт записей
+     * @throws IOException ошибка записи
+     */
+    private void rewrite(byte[] data, int offset, int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(Files.size(taskFile));
+        header.putInt(checksum(taskFile));
+        header.flip();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeFully(out, header);
+                writeFully(out, ByteBuffer.wrap(data, offset, length));
+            }
+            TaskSaver.replace(temp, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        closeChannel();
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Посчитать CRC32 файла снимка: в отличие от времени изменения,
+     * не зависит от точности часов файловой системы и копирования файла
+     *
+     * @param file файл
+     * @return контрольная сумма
+     * @throws IOException ошибка чтения
+     */
+    private static int checksum(Path file) throws IOException {
+        CRC32 sum = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // отображение не бывает длиннее 2 ГиБ
+            for (long from = 0; from < size; from += Integer.MAX_VALUE)
+                sum.update(channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(Integer.MAX_VALUE, size - from)));
+        }
+        return (int) sum.getValue();
+    }
+
+    /**
+     * Записать буфер в канал целиком
+     *
+     * @param channel канал
+     * @param buffer  буфер
+     * @throws IOException ошибка записи
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Закрыть канал журнала
+     */
+    private void closeChannel() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            report("не получилось закрыть журнал задачи", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Закрыть журнал: накопленные записи дописываются в потоке записи,
+     * новые изменения задачи больше не записываются
+     *
+     * @return future, завершающийся, когда записи дописаны, снимок
+     * запрошенного сжатия записан и файл закрыт
+     */
+    public CompletableFuture<Void> close() {
+        CompletableFuture<Path> lastCompaction;
+        synchronized (this) {
+            closed = true;
+            lastCompaction = compaction;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        TaskSaver.schedule(() -> {
+            flush();
+            closeChannel();
+            done.complete(null);
+        }, 0);
+        // об ошибке сжатия уже сообщил тот, кто его запросил
+        return done.thenCombine(lastCompaction.exceptionally(error -> null), (a, b) -> null);
+    }
+
+    /**
+     * Сообщить об ошибке журнала в лог из потока интерфейса
+     *
+     * @param message сообщение
+     * @param error   ошибка
+     */
+    private void report(String message, Throwable error) {
+        App.runOnUIThread(() -> PanelLog.error(message + " " + file + "\n" + error));
+    }
+}
@@ -0,0 +1,223 @@
+package app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Сохранение задачи в фоновом потоке. Поток интерфейса только снимает
+ * снимок задачи (Task.snapshot, за O(1) по кол-ву точек), а запись идёт
+ * в потоке "saver": задача пишется во временный файл рядом с целевым,
+ * сбрасывается на диск и атомарно переименовывается поверх него, поэтому
+ * сбой во время записи оставляет прежний файл целым. Сохранения одного
+ * файла, запрошенные чаще чем раз в DEBOUNCE_MS, объединяются: пишется
+ * только последний снимок.
+ */
+public class TaskSaver {
+    /**
+     * задержка записи, в течение которой повторные сохранения объединяются, мс
+     */
+    private static final long DEBOUNCE_MS = 250;
+    /**
+     * поток записи: один на всё приложение, чтобы записи одного файла
+     * не пересекались, и фоновый, чтобы не мешать закрытию окна
+     */
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * ожидающие записи сохранения по целевым файлам
+     */
+    private static final Map<Path, PendingSave> PENDING = new HashMap<>();
+
+    /**
+     * Сохранение, ожидающее записи
+     */
+    private static class PendingSave {
+        /**
+         * последний запрошенный снимок задачи
+         */
+        private Task snapshot;
+        /**
+         * обработчик записи последнего снимка, null, если не нужен
+         */
+        private Consumer<Boolean> onWritten;
+        /**
+         * завершение записи, общее для всех объединённых сохранений
+         */
+        private final CompletableFuture<Path> future = new CompletableFuture<>();
+
+        /**
+         * Конструктор сохранения
+         *
+         * @param snapshot  снимок задачи
+         * @param onWritten обработчик записи снимка
+         */
+        private PendingSave(Task snapshot, Consumer<Boolean> onWritten) {
+            this.snapshot = snapshot;
+            this.onWritten = onWritten;
+        }
+    }
+
+    /**
+     * Запросить сохранение задачи; вызывается из потока интерфейса.
+     * Формат выбирается по расширению файла, как в TaskCodec
+     *
+     * @param task задача
+     * @param file файл
+     * @return future, завершающийся путём к файлу после записи
+     * снимка, включающего это сохранение, или ошибкой записи
+     */
+    public static CompletableFuture<Path> save(Task task, Path file) {
+        return save(task, file, null);
+    }
+
+    /**
+     * Запросить сохранение задачи с обработчиком записи снимка.
+     * Обработчик вызывается в потоке записи до завершения future и
+     * только для того снимка, что действительно записан: при объединении
+     * сохранений он заменяется вместе со снимком
+     *
+     * @param task      задача
+     * @param file      файл
+     * @param onWritten обработчик записи снимка, получает флаг успеха; null, если не нужен
+     * @return future, завершающийся путём к файлу после записи
+     * снимка, включающего это сохранение, или ошибкой записи
+     */
+    static CompletableFuture<Path> save(Task task, Path file, Consumer<Boolean> onWritten) {
+        Task snapshot = task.snapshot();
+        Path target = file.toAbsolutePath();
+        synchronized (PENDING) {
+            PendingSave pending = PENDING.get(target);
+            // запись ещё не началась: достаточно заменить снимок
+            if (pending != null) {
+                pending.snapshot = snapshot;
+                pending.onWritten = onWritten;
+                return pending.future;
+            }
+            pending = new PendingSave(snapshot, onWritten);
+            PENDING.put(target, pending);
+            EXECUTOR.schedule(() -> write(target), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            return pending.future;
+        }
+    }
+
+    /**
+     * Записать последний снимок, запрошенный для файла
+     *
+     * @param target целевой файл
+     */
+    private static void write(Path target) {
+        PendingSave pending;
+        // новые запросы после этого момента попадут в следующую запись
+        synchronized (PENDING) {
+            pending = PENDING.remove(target);
+        }
+        try {
+            writeAtomically(pending.snapshot, target);
+        } catch (IOException | RuntimeException e) {
+            if (pending.onWritten != null)
+                pending.onWritten.accept(false);
+            pending.future.completeExceptionally(e);
+            return;
+        }
+        if (pending.onWritten != null)
+            pending.onWritten.accept(true);
+        pending.future.complete(target);
+    }
+
+    /**
+     * Записать задачу во временный файл и атомарно заменить им целевой
+     *
+     * @param task   задача
+     * @param target целевой файл
+     * @throws IOException ошибка записи
+     */
+    private static void writeAtomically(Task task, Path target) throws IOException {
+        Path dir = target.getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            // TaskCodec выбирает формат по расширению, а у временного файла оно своё
+            if (BinaryTaskCodec.isBinary(target)) {
+                BinaryTaskCodec.write(task, temp);
+            } else {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    TaskCodec.write(task, out);
+                }
+            }
+            replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Сбросить временный файл на диск и атомарно заменить им целевой
+     *
+     * @param temp   временный файл в той же папке, что и целевой
+     * @param target целевой файл
+     * @throws IOException ошибка записи
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        // данные должны оказаться на диске раньше, чем файл будет переименован
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Выполнить работу в потоке записи, чтобы она не пересекалась
+     * с записью задач
+     *
+     * @param job     работа
+     * @param delayMs задержка, мс
+     */
+    static void schedule(Runnable job, long delayMs) {
+        EXECUTOR.schedule(job, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Дождаться записи всех запрошенных сохранений и остановить поток
+     * записи; вызывается при закрытии приложения, после этого
+     * сохранять нельзя
+     *
+     * @param timeoutMs наибольшее время ожидания, мс
+     * @return флаг, успели ли записи завершиться
+     */
+    public static boolean shutdown(long timeoutMs) {
+        // отложенные записи выполняются и после shutdown
+        EXECUTOR.shutdown();
+        try {
+            return EXECUTOR.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private TaskSaver() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
@@ -63,16 +63,16 @@ public class Triangle {
      * @param ownCS
      */
     public void render(Canvas canvas, CoordinateSystem2i windowCS, CoordinateSystem2d ownCS) {
-        try (Paint p = new Paint()) {
-            // вершины треугольника
-            Vector2i pointA = windowCS.getCoords(pos1, ownCS);
-            Vector2i pointB = windowCS.getCoords(pos2, ownCS);
-            Vector2i pointC = windowCS.getCoords(pos3, ownCS);
-            // рисуем его стороны
-            canvas.drawLine(pointA.x, pointA.y, pointB.x, pointB.y, p);
-            canvas.drawLine(pointB.x, pointB.y, pointC.x, pointC.y, p);
-            canvas.drawLine(pointC.x, pointC.y, pointA.x, pointA.y, p);
-        }
+        // кисть по умолчанию из общего реестра
+        Paint p = Paints.fill(Paints.DEFAULT_COLOR);
+        // вершины треугольника
+        Vector2i pointA = windowCS.getCoords(pos1, ownCS);
+        Vector2i pointB = windowCS.getCoords(pos2, ownCS);
+        Vector2i pointC = windowCS.getCoords(pos3, ownCS);
+        // рисуем его стороны
+        canvas.drawLine(pointA.x, pointA.y, pointB.x, pointB.y, p);
+        canvas.drawLine(pointB.x, pointB.y, pointC.x, pointC.y, p);
+        canvas.drawLine(pointC.x, pointC.y, pointA.x, pointA.y, p);
     }
 
 
@@ -97,6 +97,7 @@ public class Triangle {
      * геттер треугольника
      * @return
      */
+    @JsonIgnore
     public Triangle getTriangle() {
         Triangle triangle = new Triangle(pos1, pos2, pos3);
         return triangle;
@@ -1,11 +1,10 @@
 package controls;
 
+import app.Paints;
 import controls.MultiLineLabel;
 import io.github.humbleui.jwm.Window;
 import io.github.humbleui.skija.Canvas;
-import io.github.humbleui.skija.Paint;
 import io.github.humbleui.skija.RRect;
-import io.github.humbleui.types.IRect;
 import misc.CoordinateSystem2i;
 import misc.Vector2i;
 import panels.PanelLog;
@@ -62,16 +61,15 @@ public class Button extends MultiLineLabel {
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
         // сохраняем канвасы
         canvas.save();
+        // размеры подложки берутся из размеров текущего текста
+        measure();
         if (selected) {
             if (centered)
                 canvas.translate((windowCS.getSize().x - lastTextWidth) / 2.0f + padding, 0);
             if (vcentered)
                 canvas.translate(0, (windowCS.getSize().y - lastTextHeight) / 2.0f);
 
-            try (Paint bg = new Paint().setColor(BUTTON_COLOR)) {
-                var bounds = IRect.makeXYWH(0, 0, lastTextWidth, lastTextHeight);
-                canvas.drawRRect(RRect.makeLTRB(bounds.getLeft(), bounds.getTop(), bounds.getRight(), bounds.getBottom(), 4), bg);
-            }
+            canvas.drawRRect(RRect.makeXYWH(0, 0, lastTextWidth, lastTextHeight, 4), Paints.fill(BUTTON_COLOR));
         }
         // восстанавливаем канвасы
         canvas.restore();
@@ -100,8 +98,12 @@ public class Button extends MultiLineLabel {
      * Проверить, что мышь над кнопкой
      *
      * @param pos положение курсора мыши
+     * @return флаг, изменилось ли наведение на кнопку
      */
-    public void checkOver(Vector2i pos) {
-        selected = contains(pos);
+    public boolean checkOver(Vector2i pos) {
+        boolean over = contains(pos);
+        boolean changed = over != selected;
+        selected = over;
+        return changed;
     }
 }
@@ -1,5 +1,7 @@
 package controls;
 
+import app.FrameScheduler;
+import app.Paints;
 import io.github.humbleui.jwm.*;
 import io.github.humbleui.skija.*;
 import misc.CoordinateSystem2i;
@@ -75,41 +77,35 @@ public class Input extends GridPanel {
      */
     @Override
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
-        // создаём кисть
-        try (var paint = new Paint()) {
-            // сохраняем область рисования
-            canvas.save();
-            // задаём цвет рисования
-            paint.setColor(backgroundColor);
-            // создаём метрику фона
-            FontMetrics metrics = FONT18.getMetrics();
-            // если нужно выровнять по высоте
-            if (vcentered) {
-                canvas.translate(0, (windowCS.getSize().y - INPUT_SIZE) / 2.0f);
-            }
-            // рисуем скруглённый квадрат
-            canvas.drawRRect(RRect.makeXYWH(0, 0, windowCS.getSize().x, INPUT_SIZE, 4), paint);
-            // начальное положение
-            float y = INPUT_SIZE - LOCAL_PADDING - metrics.getDescent();
-            // создаём строку для рисования
-            try (TextLine line = TextLine.make(text, FONT18)) {
-                // смещаем область рисования
-                canvas.translate(LOCAL_PADDING, y);
-                // задаём цвет текста
-                paint.setColor(textColor);
-                // рисуем линию текста
-                canvas.drawTextLine(line, 0, 0, paint);
-                // если время рисовать курсор
-                if (focused && InputFactory.cursorDraw()) {
-                    // смещаем область рисования
-                    canvas.translate(line.getWidth(), 0);
-                    // рисуем его
-                    canvas.drawRect(Rect.makeXYWH(0, metrics.getAscent(), 2, metrics.getHeight()), paint);
-                }
-            }
-            // восстанавливаем область рисования
-            canvas.restore();
+        // сохраняем область рисования
+        canvas.save();
+        // создаём метрику фона
+        FontMetrics metrics = TextCache.metrics(FONT18);
+        // если нужно выровнять по высоте
+        if (vcentered) {
+            canvas.translate(0, (windowCS.getSize().y - INPUT_SIZE) / 2.0f);
+        }
+        // рисуем скруглённый квадрат
+        canvas.drawRRect(RRect.makeXYWH(0, 0, windowCS.getSize().x, INPUT_SIZE, 4), Paints.fill(backgroundColor));
+        // начальное положение
+        float y = INPUT_SIZE - LOCAL_PADDING - metrics.getDescent();
+        // строка берётся из кэша и пересобирается, только когда текст изменился
+        TextLine line = TextCache.line(text, FONT18);
+        // смещаем область рисования
+        canvas.translate(LOCAL_PADDING, y);
+        // кисть текста
+        Paint paint = Paints.fill(textColor);
+        // рисуем линию текста
+        canvas.drawTextLine(line, 0, 0, paint);
+        // если время рисовать курсор
+        if (focused && InputFactory.cursorDraw()) {
+            // смещаем область рисования
+            canvas.translate(line.getWidth(), 0);
+            // рисуем его
+            canvas.drawRect(Rect.makeXYWH(0, metrics.getAscent(), 2, metrics.getHeight()), paint);
         }
+        // восстанавливаем область рисования
+        canvas.restore();
     }
 
     /**
@@ -146,7 +142,7 @@ public class Input extends GridPanel {
             text += ee.getText()
                     .replace((char) 9 + "", "") // Tab
                     .replace((char) 27 + "", ""); // Esc
-            window.requestFrame();
+            FrameScheduler.invalidate();
             // если нажимается клавиша клавиатуры(нужно для управляющих команд)
         } else if (e instanceof EventKey ee) {
             if (ee.isPressed()) {
@@ -1,5 +1,7 @@
 package controls;
 
+import app.FrameScheduler;
+import io.github.humbleui.jwm.App;
 import io.github.humbleui.jwm.Window;
 
 import java.util.ArrayList;
@@ -35,14 +37,27 @@ public class InputFactory {
     static {
         // запускаем таймер, срабатывающий каждые 500 мс
         // он попеременно включает и выключает рисование курсора
-        // для имитации мигания
+        // для имитации мигания; без поля в фокусе курсор не рисуется,
+        // и кадр не запрашивается. Поля ввода меняются в потоке интерфейса,
+        // поэтому таймер только передаёт мигание туда
         timer.schedule(new TimerTask() {
             public void run() {
-                cursorDraw = !cursorDraw;
+                App.runOnUIThread(InputFactory::blink);
             }
         }, 0, 500);
     }
 
+    /**
+     * Переключить рисование курсора; вызывается в потоке интерфейса
+     */
+    private static void blink() {
+        if (hasFocus()) {
+            cursorDraw = !cursorDraw;
+            FrameScheduler.invalidate();
+        } else
+            cursorDraw = true;
+    }
+
     /**
      * Получить новое поле ввода
      *
@@ -105,6 +120,18 @@ public class InputFactory {
             input.focused = false;
     }
 
+    /**
+     * Проверить, есть ли поле ввода в фокусе
+     *
+     * @return флаг
+     */
+    private static boolean hasFocus() {
+        for (Input input : inputs)
+            if (input.isFocused())
+                return true;
+        return false;
+    }
+
     /**
      * Нужно ли рисовать курсор сейчас
      *
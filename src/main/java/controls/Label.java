@@ -1,10 +1,9 @@
 package controls;
 
+import app.Paints;
 import io.github.humbleui.jwm.Event;
 import io.github.humbleui.jwm.Window;
 import io.github.humbleui.skija.Canvas;
-import io.github.humbleui.skija.Paint;
-import io.github.humbleui.skija.TextLine;
 import misc.CoordinateSystem2i;
 import panels.GridPanel;
 
@@ -27,6 +26,18 @@ public class Label extends GridPanel {
      * Флаг, нужно ли выравнивать текст по центру по вертикали
      */
     protected boolean vcentered;
+    /**
+     * текст, для которого посчитаны размеры
+     */
+    private String measuredText;
+    /**
+     * ширина текста
+     */
+    private float textWidth;
+    /**
+     * высота текста
+     */
+    private int capHeight;
 
     /**
      * Панель на сетке
@@ -65,25 +76,31 @@ public class Label extends GridPanel {
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
         // сохраняем область рисования
         canvas.save();
-        // создаём линию
-        try (TextLine line = TextLine.make(text, FONT12)) {
-            // получаем высоту текста
-            int capHeight = (int) FONT12.getMetrics().getCapHeight();
-            // если нужно центрировать по горизонтали
-            if (centered)
-                canvas.translate((windowCS.getSize().x - line.getWidth()) / 2.0f, 0);
-            if (vcentered)
-                canvas.translate(0, (windowCS.getSize().y - capHeight) / 2.0f);
+        // размеры текста пересчитываются, только когда текст изменился
+        measure();
+        // если нужно центрировать по горизонтали
+        if (centered)
+            canvas.translate((windowCS.getSize().x - textWidth) / 2.0f, 0);
+        if (vcentered)
+            canvas.translate(0, (windowCS.getSize().y - capHeight) / 2.0f);
 
-            // рисуем текст
-            try (Paint fg = new Paint().setColor(LABEL_TEXT_COLOR)) {
-                canvas.drawTextLine(line, 0, capHeight, fg);
-            }
-        }
+        // рисуем текст
+        canvas.drawTextLine(TextCache.line(text, FONT12), 0, capHeight, Paints.fill(LABEL_TEXT_COLOR));
         // восстанавливаем области рисования
         canvas.restore();
     }
 
+    /**
+     * Посчитать размеры текста, если он изменился с прошлого раза
+     */
+    private void measure() {
+        if (text.equals(measuredText))
+            return;
+        textWidth = TextCache.line(text, FONT12).getWidth();
+        capHeight = (int) TextCache.metrics(FONT12).getCapHeight();
+        measuredText = text;
+    }
+
     /**
      * Обработчик событий
      *
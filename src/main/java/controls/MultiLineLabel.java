@@ -1,9 +1,9 @@
 package controls;
 
+import app.Paints;
 import io.github.humbleui.jwm.Window;
 import io.github.humbleui.skija.Canvas;
 import io.github.humbleui.skija.Paint;
-import io.github.humbleui.skija.TextLine;
 import misc.CoordinateSystem2i;
 import panels.GridPanel;
 
@@ -34,6 +34,22 @@ public class MultiLineLabel extends GridPanel {
      * Флаг, нужно ли выравнивать текст по центру по вертикали
      */
     protected boolean vcentered;
+    /**
+     * текст, для которого посчитаны размеры
+     */
+    private String measuredText;
+    /**
+     * строки текста
+     */
+    private String[] lines;
+    /**
+     * ширины строк текста
+     */
+    private float[] lineWidths;
+    /**
+     * высота текста
+     */
+    private int capHeight;
 
     /**
      * Панель на сетке
@@ -73,28 +89,8 @@ public class MultiLineLabel extends GridPanel {
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
         // сохраняем области рисования
         canvas.save();
-        // высота текста
-        int capHeight = (int) FONT12.getMetrics().getCapHeight();
-        // говорим, что первая y координата - это высота текста
-        int y = capHeight;
-        // начальное значение для последней сохранённой высоты
-        lastTextHeight = y;
-        // начальное значение для последней сохранённой ширины
-        lastTextWidth = 0;
-
-
-        // перебираем строки текста
-        for (String lineText : text.split("\n")) {
-            // создаём линию как объект рисования
-            try (TextLine line = TextLine.make(lineText, FONT12)) {
-                // последняя сохранённая ширина будет равна максимальной ширине строки
-                lastTextWidth = Math.max((int) line.getWidth() + 2 * padding, lastTextWidth);
-            }
-            // последняя сохранённая высота равна y-координате
-            lastTextHeight += 2 * capHeight;
-        }
-        // увеличиваем последнюю сохранённую высоту на высоту текста
-        lastTextHeight += capHeight;
+        // размеры текста пересчитываются, только когда текст изменился
+        measure();
 
         // если нужно центрировать по горизонтали
         if (centered)
@@ -102,28 +98,50 @@ public class MultiLineLabel extends GridPanel {
         if (vcentered)
             canvas.translate(0, (windowCS.getSize().y - lastTextHeight) / 2.0f);
 
+        // говорим, что первая y координата - это высота текста
+        int y = capHeight;
+        Paint fg = Paints.fill(MULTILINE_TEXT_COLOR);
+        // перебираем строки текста
+        for (int i = 0; i < lines.length; i++) {
+            // рисуем линию
+            canvas.save();
 
-        try (Paint fg = new Paint().setColor(MULTILINE_TEXT_COLOR)) {
-            // перебираем строки текста
-            for (String lineText : text.split("\n")) {
-                // создаём линию как объект рисования
-                try (TextLine line = TextLine.make(lineText, FONT12)) {
-                    // рисуем линию
-                    canvas.save();
-
-                    // если нужно центрировать по горизонтали
-                    if (centered)
-                        canvas.translate((lastTextWidth - line.getWidth()) / 2, 0);
+            // если нужно центрировать по горизонтали
+            if (centered)
+                canvas.translate((lastTextWidth - lineWidths[i]) / 2, 0);
 
-                    canvas.drawTextLine(line, padding, y + padding + capHeight, fg);
-                    // увеличиваем y координату на двойную высоту текста
-                    y += 2 * capHeight;
-                    canvas.restore();
-                }
-            }
+            canvas.drawTextLine(TextCache.line(lines[i], FONT12), padding, y + padding + capHeight, fg);
+            // увеличиваем y координату на двойную высоту текста
+            y += 2 * capHeight;
+            canvas.restore();
         }
 
         // восстанавливаем области рисования
         canvas.restore();
     }
+
+    /**
+     * Посчитать размеры текста, если он изменился с прошлого раза
+     */
+    protected void measure() {
+        if (text.equals(measuredText))
+            return;
+        capHeight = (int) TextCache.metrics(FONT12).getCapHeight();
+        lines = text.split("\n");
+        lineWidths = new float[lines.length];
+        // начальное значение для последней сохранённой высоты
+        lastTextHeight = capHeight;
+        // начальное значение для последней сохранённой ширины
+        lastTextWidth = 0;
+        for (int i = 0; i < lines.length; i++) {
+            lineWidths[i] = TextCache.line(lines[i], FONT12).getWidth();
+            // последняя сохранённая ширина будет равна максимальной ширине строки
+            lastTextWidth = Math.max((int) lineWidths[i] + 2 * padding, lastTextWidth);
+            // последняя сохранённая высота равна y-координате
+            lastTextHeight += 2 * capHeight;
+        }
+        // увеличиваем последнюю сохранённую высоту на высоту текста
+        lastTextHeight += capHeight;
+        measuredText = text;
+    }
 }
@@ -0,0 +1,98 @@
+package controls;
+
+import io.github.humbleui.skija.Font;
+import io.github.humbleui.skija.FontMetrics;
+import io.github.humbleui.skija.TextLine;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Общий кэш разметки текста: строки, уже разложенные шрифтом в TextLine,
+ * и метрики шрифтов. Элементы управления рисуются каждый кадр одним и тем же
+ * текстом, поэтому разметка строится один раз, а дальше берётся из кэша.
+ * Кэш ограничен MAX_ENTRIES строками: давно не использованные строки
+ * вытесняются, и их TextLine закрываются. Используется только из потока
+ * интерфейса.
+ */
+public class TextCache {
+    /**
+     * наибольшее кол-во строк в кэше
+     */
+    private static final int MAX_ENTRIES = 256;
+    /**
+     * строки в порядке использования, первая - давно не использованная
+     */
+    private static final Map<Key, TextLine> LINES = new LinkedHashMap<>(MAX_ENTRIES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TextLine> eldest) {
+            if (size() <= MAX_ENTRIES)
+                return false;
+            eldest.getValue().close();
+            return true;
+        }
+    };
+    /**
+     * метрики шрифтов
+     */
+    private static final Map<Font, FontMetrics> METRICS = new IdentityHashMap<>();
+
+    /**
+     * Ключ кэша: текст и шрифт; шрифты сравниваются по ссылке,
+     * потому что в приложении это константы из Fonts
+     *
+     * @param text текст
+     * @param font шрифт
+     */
+    private record Key(String text, Font font) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && font == key.font && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode() * 31 + System.identityHashCode(font);
+        }
+    }
+
+    /**
+     * Получить строку, разложенную шрифтом. Строка принадлежит кэшу:
+     * её нельзя закрывать и нельзя хранить дольше одного кадра,
+     * потому что при вытеснении она закрывается
+     *
+     * @param text текст
+     * @param font шрифт
+     * @return строка
+     */
+    public static TextLine line(String text, Font font) {
+        return LINES.computeIfAbsent(new Key(text, font), key -> TextLine.make(key.text(), key.font()));
+    }
+
+    /**
+     * Получить метрики шрифта
+     *
+     * @param font шрифт
+     * @return метрики
+     */
+    public static FontMetrics metrics(Font font) {
+        return METRICS.computeIfAbsent(font, Font::getMetrics);
+    }
+
+    /**
+     * Закрыть все строки кэша
+     */
+    public static void clear() {
+        for (TextLine line : LINES.values())
+            line.close();
+        LINES.clear();
+    }
+
+    /**
+     * Запрещаем вызов конструктора
+     */
+    private TextCache() {
+        throw new AssertionError("Вызов этого конструктора запрещён!");
+    }
+}
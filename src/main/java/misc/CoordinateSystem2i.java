@@ -188,6 +188,17 @@ public class CoordinateSystem2i {
         result = 31 * result + (min != null ? min.hashCode() : 0);
         return result;
     }
+    /**
+     * Получить преобразование между вещественной системой координат и текущей;
+     * для перевода многих точек через одну пару СК оно быстрее getCoords
+     *
+     * @param coordinateSystem вещественная система координат
+     * @return преобразование
+     */
+    public Transform2d getTransform(CoordinateSystem2d coordinateSystem) {
+        return new Transform2d(coordinateSystem, this);
+    }
+
     /**
      * Получить координаты вектора в текущей системе координат
      *
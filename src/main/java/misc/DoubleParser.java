@@ -0,0 +1,259 @@
+package misc;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбор десятичных чисел из байтов ASCII без создания строк.
+ * Цифры собираются в 64-битную мантиссу w и десятичный порядок q,
+ * значение w * 10^q округляется до ближайшего double так же, как
+ * Double.parseDouble: точным умножением на степень десяти, если w
+ * и q малы (метод Клингера), иначе 128-битным умножением на
+ * степень пятёрки из таблицы (алгоритм Айзеля - Лемира). Только если
+ * цифр больше 19 и отброшенные цифры влияют на округление, число
+ * разбирается через Double.parseDouble - на практике такого почти
+ * не бывает. Объект хранит конец последнего разобранного числа,
+ * поэтому у каждого потока должен быть свой объект.
+ */
+public class DoubleParser {
+    /**
+     * наименьший десятичный порядок, дающий не ноль
+     */
+    private static final int MIN_POWER = -342;
+    /**
+     * наибольший десятичный порядок, дающий не бесконечность
+     */
+    private static final int MAX_POWER = 308;
+    /**
+     * кол-во явных бит мантиссы double
+     */
+    private static final int MANTISSA_BITS = 52;
+    /**
+     * точные степени десяти для метода Клингера
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * 128-битные нормированные степени пятёрки от 5^MIN_POWER до 5^MAX_POWER:
+     * старшая и младшая половины подряд
+     */
+    private static final long[] POW5 = powersOfFive();
+    /**
+     * индекс байта после последнего разобранного числа
+     */
+    private int end;
+
+    /**
+     * Разобрать число вида [+-]цифры[.цифры][(e|E)[+-]цифры]
+     *
+     * @param buffer буфер с текстом
+     * @param from   индекс первого байта числа
+     * @param to     индекс байта после конца области разбора
+     * @return число или Double.NaN, если с from число не начинается
+     */
+    public double parse(ByteBuffer buffer, int from, int to) {
+        int p = from;
+        boolean negative = false;
+        if (p < to && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negative = buffer.get(p) == '-';
+            p++;
+        }
+        // мантисса - беззнаковое число до 19 значащих цифр
+        long w = 0;
+        int digits = 0;
+        int q = 0;
+        boolean any = false;
+        boolean truncated = false;
+        int c;
+        while (p < to && (c = buffer.get(p) - '0') >= 0 && c <= 9) {
+            any = true;
+            if (digits < 19) {
+                w = w * 10 + c;
+                if (w != 0)
+                    digits++;
+            } else {
+                q++;
+                truncated |= c != 0;
+            }
+            p++;
+        }
+        if (p < to && buffer.get(p) == '.') {
+            p++;
+            while (p < to && (c = buffer.get(p) - '0') >= 0 && c <= 9) {
+                any = true;
+                if (digits < 19) {
+                    w = w * 10 + c;
+                    if (w != 0)
+                        digits++;
+                    q--;
+                } else {
+                    truncated |= c != 0;
+                }
+                p++;
+            }
+        }
+        if (!any) {
+            end = from;
+            return Double.NaN;
+        }
+        if (p < to && (buffer.get(p) == 'e' || buffer.get(p) == 'E')) {
+            p++;
+            boolean negativeExponent = false;
+            if (p < to && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+                negativeExponent = buffer.get(p) == '-';
+                p++;
+            }
+            int exponent = 0;
+            boolean exponentDigits = false;
+            while (p < to && (c = buffer.get(p) - '0') >= 0 && c <= 9) {
+                exponentDigits = true;
+                // дальше всё равно ноль или бесконечность
+                if (exponent < 100_000)
+                    exponent = exponent * 10 + c;
+                p++;
+            }
+            if (!exponentDigits) {
+                end = from;
+                return Double.NaN;
+            }
+            q += negativeExponent ? -exponent : exponent;
+        }
+        end = p;
+        double value = toDouble(w, q, truncated);
+        // отброшенные цифры влияют на округление: разбираем медленно
+        if (Double.isNaN(value)) {
+            byte[] text = new byte[p - from];
+            buffer.get(from, text);
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Получить индекс байта после последнего разобранного числа
+     *
+     * @return индекс
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Округлить w * 10^q до ближайшего double
+     *
+     * @param w         беззнаковая мантисса
+     * @param q         десятичный порядок
+     * @param truncated флаг, что у мантиссы отброшены ненулевые цифры
+     * @return число или Double.NaN, если отброшенные цифры влияют на округление
+     */
+    static double toDouble(long w, int q, boolean truncated) {
+        if (w == 0)
+            return 0;
+        // и мантисса, и степень десяти точны, поэтому точен и результат
+        if (!truncated && q >= -22 && q <= 22 && Long.compareUnsigned(w, 1L << 53) <= 0)
+            return q < 0 ? w / POW10[-q] : w * POW10[q];
+        double value = lemire(w, q);
+        if (truncated && value != lemire(w + 1, q))
+            return Double.NaN;
+        return value;
+    }
+
+    /**
+     * Округлить w * 10^q до ближайшего double по алгоритму Айзеля - Лемира
+     *
+     * @param w беззнаковая мантисса, не ноль
+     * @param q десятичный порядок
+     * @return число
+     */
+    private static double lemire(long w, int q) {
+        if (q < MIN_POWER)
+            return 0;
+        if (q > MAX_POWER)
+            return Double.POSITIVE_INFINITY;
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        int index = 2 * (q - MIN_POWER);
+        long hi = unsignedMultiplyHigh(w, POW5[index]);
+        long lo = w * POW5[index];
+        // старших бит не хватает для округления: уточняем младшей половиной степени
+        long precisionMask = -1L >>> (MANTISSA_BITS + 3);
+        if ((hi & precisionMask) == precisionMask) {
+            long secondHi = unsignedMultiplyHigh(w, POW5[index + 1]);
+            lo += secondHi;
+            if (Long.compareUnsigned(secondHi, lo) > 0)
+                hi++;
+        }
+        int upperBit = (int) (hi >>> 63);
+        long mantissa = hi >>> (upperBit + 64 - MANTISSA_BITS - 3);
+        // floor(log2(10^q)) + 63 + поправки на нормировку и смещение порядка
+        int power2 = ((217706 * q) >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) {
+            // денормализованное число
+            if (-power2 + 1 >= 64)
+                return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_BITS) ? 0 : 1;
+            return Double.longBitsToDouble((long) power2 << MANTISSA_BITS | mantissa);
+        }
+        // ровно посередине между двумя double: округляем к чётному
+        if (Long.compareUnsigned(lo, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && mantissa << (upperBit + 64 - MANTISSA_BITS - 3) == hi)
+            mantissa &= ~1L;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_BITS)) {
+            mantissa = 1L << MANTISSA_BITS;
+            power2++;
+        }
+        mantissa &= ~(1L << MANTISSA_BITS);
+        if (power2 >= 0x7FF)
+            return Double.POSITIVE_INFINITY;
+        return Double.longBitsToDouble((long) power2 << MANTISSA_BITS | mantissa);
+    }
+
+    /**
+     * Старшие 64 бита беззнакового произведения
+     *
+     * @param a первый множитель
+     * @param b второй множитель
+     * @return старшая половина произведения
+     */
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * Построить таблицу степеней пятёрки: для q >= 0 это 5^q, сдвинутое
+     * так, чтобы старший бит стал 127-м, и обрезанное до 128 бит, для q < 0 -
+     * обратная величина 2^b / 5^-q + 1 той же длины
+     *
+     * @return таблица
+     */
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+            BigInteger value;
+            if (q < 0) {
+                BigInteger power = five.pow(-q);
+                int z = power.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                if (value.bitLength() > 128)
+                    value = value.shiftRight(value.bitLength() - 128);
+            } else {
+                value = five.pow(q);
+                value = value.bitLength() > 128 ? value.shiftRight(value.bitLength() - 128) : value.shiftLeft(128 - value.bitLength());
+            }
+            int index = 2 * (q - MIN_POWER);
+            table[index] = value.shiftRight(64).longValue();
+            table[index + 1] = value.longValue();
+        }
+        return table;
+    }
+}
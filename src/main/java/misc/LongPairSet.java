@@ -0,0 +1,111 @@
+package misc;
+
+import java.util.Arrays;
+
+/**
+ * Множество пар чисел long с открытой адресацией (линейное пробирование).
+ * Ключи лежат в двух примитивных массивах, без объекта на каждый ключ.
+ * Размер таблицы ограничен: когда она заполняется наполовину, все ключи
+ * забываются, поэтому множество годится только как кэш - отсутствие
+ * ключа не означает, что его никогда не добавляли.
+ */
+public class LongPairSet {
+    /**
+     * первые половины ключей
+     */
+    private final long[] firsts;
+    /**
+     * вторые половины ключей
+     */
+    private final long[] seconds;
+    /**
+     * флаги занятых ячеек
+     */
+    private final boolean[] used;
+    /**
+     * маска индекса ячейки
+     */
+    private final int mask;
+    /**
+     * кол-во ключей, после которого таблица очищается
+     */
+    private final int maxSize;
+    /**
+     * кол-во ключей
+     */
+    private int size;
+
+    /**
+     * Конструктор множества
+     *
+     * @param capacityLog двоичный логарифм кол-ва ячеек таблицы
+     */
+    public LongPairSet(int capacityLog) {
+        int capacity = 1 << capacityLog;
+        firsts = new long[capacity];
+        seconds = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        maxSize = capacity >>> 1;
+    }
+
+    /**
+     * Добавить ключ
+     *
+     * @param first  первая половина ключа
+     * @param second вторая половина ключа
+     * @return true, если ключа не было в множестве
+     */
+    public boolean add(long first, long second) {
+        int slot = hash(first, second) & mask;
+        while (used[slot]) {
+            if (firsts[slot] == first && seconds[slot] == second)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        // при переполнении начинаем заново, а ключ кладём в пустую таблицу
+        if (size >= maxSize) {
+            clear();
+            slot = hash(first, second) & mask;
+        }
+        used[slot] = true;
+        firsts[slot] = first;
+        seconds[slot] = second;
+        size++;
+        return true;
+    }
+
+    /**
+     * Очистить множество
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Получить кол-во ключей
+     *
+     * @return кол-во ключей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Перемешать биты ключа (финализатор из MurmurHash3)
+     *
+     * @param first  первая половина ключа
+     * @param second вторая половина ключа
+     * @return хэш
+     */
+    private static int hash(long first, long second) {
+        long h = first * 0x9E3779B97F4A7C15L + second;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
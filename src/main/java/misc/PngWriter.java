@@ -0,0 +1,214 @@
+package misc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Потоковая запись PNG без прозрачности (8 бит на канал, RGB). Строки
+ * передаются по одной сверху вниз и сразу сжимаются в поток, поэтому
+ * в памяти никогда не лежит вся картинка: так можно записать картинку
+ * 16k x 16k, держа в памяти только текущую полосу пикселей.
+ */
+public class PngWriter implements AutoCloseable {
+    /**
+     * подпись PNG
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * наибольший размер одного блока IDAT
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * фильтр строки Sub: байт минус байт соседнего пикселя слева
+     */
+    private static final byte FILTER_SUB = 1;
+    /**
+     * поток файла
+     */
+    private final OutputStream out;
+    /**
+     * сжатие строк
+     */
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    /**
+     * сжатый поток строк
+     */
+    private final DeflaterOutputStream compressed;
+    /**
+     * ширина картинки
+     */
+    private final int width;
+    /**
+     * высота картинки
+     */
+    private final int height;
+    /**
+     * отфильтрованная строка: байт фильтра и RGB каждого пикселя
+     */
+    private final byte[] row;
+    /**
+     * кол-во записанных строк
+     */
+    private int rows;
+
+    /**
+     * Начать запись картинки
+     *
+     * @param out    поток, в который пишется картинка; закрывается вместе с писателем
+     * @param width  ширина
+     * @param height высота
+     * @throws IOException ошибка записи
+     */
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("размер картинки должен быть положительным: " + width + "x" + height);
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + width * 3];
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // бит на канал
+        header[9] = 2; // RGB
+        // сжатие, фильтрация и порядок строк по умолчанию
+        writeChunk("IHDR", header, header.length);
+        compressed = new DeflaterOutputStream(new ChunkStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Записать следующую строку
+     *
+     * @param rgba   пиксели в формате RGBA, прозрачность отбрасывается
+     * @param offset индекс первого байта строки
+     * @throws IOException ошибка записи
+     */
+    public void writeRow(byte[] rgba, int offset) throws IOException {
+        if (rows == height)
+            throw new IllegalStateException("все строки картинки уже записаны");
+        row[0] = FILTER_SUB;
+        int r = 0, g = 0, b = 0;
+        for (int x = 0, src = offset, dst = 1; x < width; x++, src += 4, dst += 3) {
+            int nr = rgba[src], ng = rgba[src + 1], nb = rgba[src + 2];
+            row[dst] = (byte) (nr - r);
+            row[dst + 1] = (byte) (ng - g);
+            row[dst + 2] = (byte) (nb - b);
+            r = nr;
+            g = ng;
+            b = nb;
+        }
+        compressed.write(row);
+        rows++;
+    }
+
+    /**
+     * Завершить картинку и закрыть поток
+     *
+     * @throws IOException ошибка записи или записаны не все строки
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            compressed.close();
+            if (rows != height)
+                throw new IOException("записано " + rows + " строк из " + height);
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            // свой Deflater поток не освобождает
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Записать блок PNG
+     *
+     * @param type   тип блока
+     * @param data   данные
+     * @param length длина данных
+     * @throws IOException ошибка записи
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] buffer = new byte[4];
+        putInt(buffer, 0, length);
+        out.write(buffer);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        putInt(buffer, 0, (int) crc.getValue());
+        out.write(buffer);
+    }
+
+    /**
+     * Записать число в старшем порядке байт
+     *
+     * @param buffer массив
+     * @param offset индекс первого байта
+     * @param value  число
+     */
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Поток сжатых данных, нарезающий их на блоки IDAT
+     */
+    private class ChunkStream extends OutputStream {
+        /**
+         * накопленные данные блока
+         */
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        /**
+         * кол-во накопленных байт
+         */
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buffer.length)
+                flushChunk();
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (size == buffer.length)
+                    flushChunk();
+                int n = Math.min(length, buffer.length - size);
+                System.arraycopy(data, offset, buffer, size, n);
+                size += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        /**
+         * Записать накопленные данные блоком IDAT
+         *
+         * @throws IOException ошибка записи
+         */
+        private void flushChunk() throws IOException {
+            if (size == 0)
+                return;
+            writeChunk("IDAT", buffer, size);
+            size = 0;
+        }
+    }
+}
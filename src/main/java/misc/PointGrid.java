@@ -0,0 +1,266 @@
+package misc;
+
+import java.util.Arrays;
+
+/**
+ * Равномерная сетка над хранилищем точек для поиска точек в прямоугольнике.
+ * Каждая ячейка хранит индексы своих точек. Точки хранилища только
+ * добавляются в конец, поэтому новые точки дописываются в сетку при
+ * следующем запросе; сетка строится заново, если точка вышла за её
+ * границы, кол-во точек выросло в GROWTH раз или хранилище очищено.
+ */
+public class PointGrid {
+    /**
+     * желаемое среднее кол-во точек в ячейке
+     */
+    private static final int POINTS_PER_CELL = 16;
+    /**
+     * наибольшее кол-во ячеек по одной оси
+     */
+    private static final int MAX_SIDE = 1024;
+    /**
+     * во сколько раз должно вырасти кол-во точек, чтобы сетку стоило перестроить
+     */
+    private static final int GROWTH = 4;
+    /**
+     * начальная ёмкость ячейки
+     */
+    private static final int CELL_CAPACITY = 4;
+    /**
+     * хранилище точек
+     */
+    private final PointStore points;
+    /**
+     * кол-во ячеек по одной оси, 0 - сетка не построена
+     */
+    private int side;
+    /**
+     * левый нижний угол сетки
+     */
+    private double minX, minY;
+    /**
+     * размер ячейки
+     */
+    private double cellX, cellY;
+    /**
+     * индексы точек каждой ячейки
+     */
+    private int[][] cells;
+    /**
+     * кол-во точек в каждой ячейке
+     */
+    private int[] cellSizes;
+    /**
+     * кол-во точек хранилища, уже добавленных в сетку
+     */
+    private int indexed;
+    /**
+     * кол-во точек, для которого сетка построена
+     */
+    private int builtFor;
+    /**
+     * индексы точек, найденных последним запросом
+     */
+    private int[] result = new int[16];
+
+    /**
+     * Конструктор сетки
+     *
+     * @param points хранилище точек
+     */
+    public PointGrid(PointStore points) {
+        this.points = points;
+    }
+
+    /**
+     * Забыть все точки: после очистки хранилища сетка строится заново
+     */
+    public void reset() {
+        side = 0;
+        indexed = 0;
+    }
+
+    /**
+     * Найти точки в прямоугольнике; индексы точек доступны через getResult()
+     *
+     * @param left   левая граница
+     * @param bottom нижняя граница
+     * @param right  правая граница
+     * @param top    верхняя граница
+     * @return кол-во найденных точек
+     */
+    public int query(double left, double bottom, double right, double top) {
+        return search(left, bottom, right, top, true);
+    }
+
+    /**
+     * Посчитать точки в прямоугольнике
+     *
+     * @param left   левая граница
+     * @param bottom нижняя граница
+     * @param right  правая граница
+     * @param top    верхняя граница
+     * @return кол-во точек
+     */
+    public int count(double left, double bottom, double right, double top) {
+        return search(left, bottom, right, top, false);
+    }
+
+    /**
+     * Получить индексы точек, найденных последним вызовом query;
+     * массив переиспользуется и может быть длиннее результата
+     *
+     * @return индексы точек
+     */
+    public int[] getResult() {
+        return result;
+    }
+
+    /**
+     * Найти точки в прямоугольнике
+     *
+     * @param left    левая граница
+     * @param bottom  нижняя граница
+     * @param right   правая граница
+     * @param top     верхняя граница
+     * @param collect флаг, нужно ли записывать индексы точек в result
+     * @return кол-во найденных точек
+     */
+    private int search(double left, double bottom, double right, double top, boolean collect) {
+        update();
+        if (side == 0 || !(left <= right && bottom <= top))
+            return 0;
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        int fromX = cellIndex(left, minX, cellX), toX = cellIndex(right, minX, cellX);
+        int fromY = cellIndex(bottom, minY, cellY), toY = cellIndex(top, minY, cellY);
+        int found = 0;
+        for (int cy = fromY; cy <= toY; cy++) {
+            // ячейки строки, целиком лежащие в прямоугольнике, берутся без проверки точек
+            boolean insideY = cy > fromY && cy < toY;
+            for (int cx = fromX; cx <= toX; cx++) {
+                int cell = cy * side + cx;
+                int size = cellSizes[cell];
+                if (size == 0)
+                    continue;
+                int[] indices = cells[cell];
+                if (insideY && cx > fromX && cx < toX) {
+                    if (collect) {
+                        ensureResult(found + size);
+                        System.arraycopy(indices, 0, result, found, size);
+                    }
+                    found += size;
+                    continue;
+                }
+                for (int k = 0; k < size; k++) {
+                    int i = indices[k];
+                    if (xs[i] >= left && xs[i] <= right && ys[i] >= bottom && ys[i] <= top) {
+                        if (collect) {
+                            ensureResult(found + 1);
+                            result[found] = i;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Дописать в сетку новые точки хранилища, при необходимости перестроив её
+     */
+    private void update() {
+        int n = points.size();
+        if (side == 0 || n < indexed || (side < MAX_SIDE && n > (long) builtFor * GROWTH)) {
+            rebuild();
+            return;
+        }
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        double maxX = minX + cellX * side, maxY = minY + cellY * side;
+        for (int i = indexed; i < n; i++) {
+            if (!(xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY)) {
+                rebuild();
+                return;
+            }
+            insert(i, xs[i], ys[i]);
+        }
+        indexed = n;
+    }
+
+    /**
+     * Построить сетку заново по всем точкам хранилища
+     */
+    private void rebuild() {
+        int n = points.size();
+        builtFor = Math.max(n, 1);
+        indexed = n;
+        if (n == 0) {
+            side = 0;
+            return;
+        }
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        double left = xs[0], right = xs[0], bottom = ys[0], top = ys[0];
+        for (int i = 1; i < n; i++) {
+            left = Math.min(left, xs[i]);
+            right = Math.max(right, xs[i]);
+            bottom = Math.min(bottom, ys[i]);
+            top = Math.max(top, ys[i]);
+        }
+        // запас по краям, чтобы точки рядом с границей не перестраивали сетку
+        double marginX = Math.max((right - left) / 4, 1e-9 * Math.max(1, Math.abs(left)));
+        double marginY = Math.max((top - bottom) / 4, 1e-9 * Math.max(1, Math.abs(bottom)));
+        minX = left - marginX;
+        minY = bottom - marginY;
+        side = (int) Math.max(1, Math.min(MAX_SIDE, Math.ceil(Math.sqrt((double) n / POINTS_PER_CELL))));
+        cellX = (right - left + marginX * 2) / side;
+        cellY = (top - bottom + marginY * 2) / side;
+        cells = new int[side * side][];
+        cellSizes = new int[side * side];
+        for (int i = 0; i < n; i++)
+            insert(i, xs[i], ys[i]);
+    }
+
+    /**
+     * Добавить точку в её ячейку
+     *
+     * @param i индекс точки
+     * @param x координата x
+     * @param y координата y
+     */
+    private void insert(int i, double x, double y) {
+        int cell = cellIndex(y, minY, cellY) * side + cellIndex(x, minX, cellX);
+        int size = cellSizes[cell];
+        if (cells[cell] == null)
+            cells[cell] = new int[CELL_CAPACITY];
+        else if (size == cells[cell].length)
+            cells[cell] = Arrays.copyOf(cells[cell], size * 2);
+        cells[cell][size] = i;
+        cellSizes[cell] = size + 1;
+    }
+
+    /**
+     * Номер ячейки по одной оси
+     *
+     * @param value координата
+     * @param min   начало сетки по этой оси
+     * @param cell  размер ячейки по этой оси
+     * @return номер ячейки, прижатый к границам сетки
+     */
+    private int cellIndex(double value, double min, double cell) {
+        double index = Math.floor((value - min) / cell);
+        return (int) Math.max(0, Math.min(side - 1, index));
+    }
+
+    /**
+     * Увеличить массив результата
+     *
+     * @param capacity нужная ёмкость
+     */
+    private void ensureResult(int capacity) {
+        if (capacity > result.length)
+            result = Arrays.copyOf(result, Math.max(capacity, result.length * 2));
+    }
+}
@@ -0,0 +1,220 @@
+package misc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбор точек из текста CSV/XYZ: в каждой строке координаты x и y,
+ * разделённые запятой, точкой с запятой, пробелами или табуляцией.
+ * Третий и следующие столбцы (z в XYZ) пропускаются, пустые строки
+ * и строки, начинающиеся с '#', тоже. Ошибочная строка не прерывает
+ * разбор: она только считается, а первые MAX_ERRORS из них запоминаются
+ * с номером и причиной. Числа разбираются прямо из буфера, поэтому
+ * на правильные строки ничего не выделяется, кроме роста хранилища.
+ * Объект разбирает один кусок текста в одном потоке.
+ */
+public class PointParser {
+    /**
+     * сколько ошибочных строк запоминается
+     */
+    public static final int MAX_ERRORS = 10;
+    /**
+     * сколько символов ошибочной строки попадает в сообщение
+     */
+    private static final int MAX_QUOTE = 40;
+    /**
+     * разобранные точки
+     */
+    private final PointStore points = new PointStore();
+    /**
+     * разборщик чисел
+     */
+    private final DoubleParser number = new DoubleParser();
+    /**
+     * номера запомненных ошибочных строк, считая с 1
+     */
+    private final int[] errorLines = new int[MAX_ERRORS];
+    /**
+     * причины запомненных ошибок
+     */
+    private final String[] errorMessages = new String[MAX_ERRORS];
+    /**
+     * кол-во разобранных строк
+     */
+    private int lines;
+    /**
+     * кол-во ошибочных строк
+     */
+    private int errors;
+
+    /**
+     * Разобрать строки буфера от position до limit. Кусок должен начинаться
+     * с начала строки; последняя строка может не заканчиваться переводом строки
+     *
+     * @param buffer буфер с текстом в ASCII или UTF-8
+     */
+    public void parse(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int pos = buffer.position();
+        while (pos < limit) {
+            int end = pos;
+            while (end < limit && buffer.get(end) != '\n')
+                end++;
+            lines++;
+            parseLine(buffer, pos, end);
+            pos = end + 1;
+        }
+    }
+
+    /**
+     * Разобрать одну строку
+     *
+     * @param buffer буфер
+     * @param from   индекс первого байта строки
+     * @param to     индекс перевода строки или конца куска
+     */
+    private void parseLine(ByteBuffer buffer, int from, int to) {
+        int p = skipSpaces(buffer, from, to);
+        // пустая строка или комментарий
+        if (p == to || buffer.get(p) == '#')
+            return;
+        double x = number.parse(buffer, p, to);
+        if (Double.isNaN(x)) {
+            error(buffer, from, to, "ожидалась координата x");
+            return;
+        }
+        p = skipSeparator(buffer, number.getEnd(), to);
+        if (p < 0) {
+            error(buffer, from, to, "ожидался разделитель после x");
+            return;
+        }
+        double y = number.parse(buffer, p, to);
+        if (Double.isNaN(y)) {
+            error(buffer, from, to, "ожидалась координата y");
+            return;
+        }
+        // после y - конец строки или следующий столбец
+        p = number.getEnd();
+        if (p < to && !isSpace(buffer.get(p)) && buffer.get(p) != ',' && buffer.get(p) != ';') {
+            error(buffer, from, to, "лишние символы после y");
+            return;
+        }
+        points.add(x, y);
+    }
+
+    /**
+     * Пропустить пробелы, табуляции и возврат каретки
+     *
+     * @param buffer буфер
+     * @param from   индекс начала
+     * @param to     индекс конца строки
+     * @return индекс первого другого байта или to
+     */
+    private static int skipSpaces(ByteBuffer buffer, int from, int to) {
+        while (from < to && isSpace(buffer.get(from)))
+            from++;
+        return from;
+    }
+
+    /**
+     * Пропустить разделитель столбцов: пробелы, не больше одной запятой
+     * или точки с запятой и снова пробелы
+     *
+     * @param buffer буфер
+     * @param from   индекс после предыдущего числа
+     * @param to     индекс конца строки
+     * @return индекс после разделителя или -1, если разделителя нет
+     */
+    private static int skipSeparator(ByteBuffer buffer, int from, int to) {
+        int p = skipSpaces(buffer, from, to);
+        if (p < to && (buffer.get(p) == ',' || buffer.get(p) == ';'))
+            return skipSpaces(buffer, p + 1, to);
+        return p > from ? p : -1;
+    }
+
+    /**
+     * Проверить, является ли байт пробельным
+     *
+     * @param b байт
+     * @return флаг
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Учесть ошибочную строку
+     *
+     * @param buffer буфер
+     * @param from   индекс первого байта строки
+     * @param to     индекс конца строки
+     * @param reason причина
+     */
+    private void error(ByteBuffer buffer, int from, int to, String reason) {
+        if (errors < MAX_ERRORS) {
+            // строку в сообщение копируем только для запоминаемых ошибок
+            byte[] quote = new byte[Math.min(to - from, MAX_QUOTE)];
+            buffer.get(from, quote);
+            errorLines[errors] = lines;
+            errorMessages[errors] = reason + ": \"" + new String(quote, StandardCharsets.UTF_8).strip()
+                    + (to - from > MAX_QUOTE ? "...\"" : "\"");
+        }
+        errors++;
+    }
+
+    /**
+     * Получить разобранные точки
+     *
+     * @return точки
+     */
+    public PointStore getPoints() {
+        return points;
+    }
+
+    /**
+     * Получить кол-во разобранных строк
+     *
+     * @return кол-во строк
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * Получить кол-во ошибочных строк
+     *
+     * @return кол-во ошибок
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Получить кол-во запомненных ошибок
+     *
+     * @return кол-во, не больше MAX_ERRORS
+     */
+    public int getReportedErrors() {
+        return Math.min(errors, MAX_ERRORS);
+    }
+
+    /**
+     * Получить номер запомненной ошибочной строки
+     *
+     * @param i номер ошибки
+     * @return номер строки в куске, считая с 1
+     */
+    public int getErrorLine(int i) {
+        return errorLines[i];
+    }
+
+    /**
+     * Получить причину запомненной ошибки
+     *
+     * @param i номер ошибки
+     * @return причина с началом строки
+     */
+    public String getErrorMessage(int i) {
+        return errorMessages[i];
+    }
+}
@@ -0,0 +1,344 @@
+package misc;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Хранилище точек в виде двух массивов координат
+ * (structure-of-arrays): x-координаты лежат подряд в одном массиве,
+ * y-координаты - в другом, без объекта на каждую точку
+ */
+@JsonSerialize(using = PointStore.Serializer.class)
+@JsonDeserialize(using = PointStore.Deserializer.class)
+public class PointStore {
+    /**
+     * начальная ёмкость хранилища
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * x-координаты точек
+     */
+    private double[] xs;
+    /**
+     * y-координаты точек
+     */
+    private double[] ys;
+    /**
+     * кол-во точек
+     */
+    private int size;
+    /**
+     * флаг, что массивы координат видны снимку: дописывать в них можно,
+     * а перезаписывать уже добавленные точки нельзя
+     */
+    private boolean shared;
+    /**
+     * флаг, что хранилище - снимок и менять его нельзя
+     */
+    private boolean frozen;
+
+    /**
+     * Конструктор пустого хранилища
+     */
+    public PointStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор пустого хранилища заданной ёмкости
+     *
+     * @param capacity начальная ёмкость
+     */
+    public PointStore(int capacity) {
+        xs = new double[Math.max(capacity, 1)];
+        ys = new double[Math.max(capacity, 1)];
+        size = 0;
+    }
+
+    /**
+     * Создать хранилище поверх готовых массивов координат без копирования
+     *
+     * @param xs   x-координаты точек
+     * @param ys   y-координаты точек
+     * @param size кол-во точек, не больше длины массивов
+     * @return хранилище
+     */
+    public static PointStore wrap(double[] xs, double[] ys, int size) {
+        if (xs.length != ys.length || xs.length == 0 || size < 0 || size > xs.length)
+            throw new IllegalArgumentException("массивы координат не подходят для " + size + " точек");
+        PointStore store = new PointStore(0);
+        store.xs = xs;
+        store.ys = ys;
+        store.size = size;
+        return store;
+    }
+
+    /**
+     * Добавить точку
+     *
+     * @param x координата X
+     * @param y координата Y
+     */
+    public void add(double x, double y) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Добавить точку
+     *
+     * @param pos положение точки
+     */
+    public void add(Vector2d pos) {
+        add(pos.x, pos.y);
+    }
+
+    /**
+     * Добавить все точки другого хранилища
+     *
+     * @param other хранилище
+     */
+    public void addAll(PointStore other) {
+        // хранилище может добавляться само в себя
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.xs, 0, xs, size, count);
+        System.arraycopy(other.ys, 0, ys, size, count);
+        size += count;
+    }
+
+    /**
+     * Гарантировать, что в хранилище поместится заданное кол-во точек
+     *
+     * @param capacity требуемая ёмкость
+     */
+    public void ensureCapacity(int capacity) {
+        if (frozen)
+            throw new IllegalStateException("снимок точек менять нельзя");
+        if (capacity <= xs.length)
+            return;
+        // растём в полтора раза, чтобы добавление было в среднем O(1)
+        int newCapacity = Math.max(capacity, xs.length + (xs.length >> 1));
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        // у новых массивов снимков нет
+        shared = false;
+    }
+
+    /**
+     * Получить копию хранилища
+     *
+     * @return копия с теми же точками
+     */
+    public PointStore copy() {
+        PointStore copy = new PointStore(size);
+        System.arraycopy(xs, 0, copy.xs, 0, size);
+        System.arraycopy(ys, 0, copy.ys, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Получить неизменяемый снимок хранилища за O(1). Точки только
+     * дописываются в конец, поэтому снимок делит массивы координат
+     * с хранилищем и видит ровно те точки, что были на момент снимка;
+     * после очистки хранилище заводит новые массивы, чтобы не затереть
+     * точки снимка. Снимок можно читать из другого потока
+     *
+     * @return снимок
+     */
+    public PointStore snapshot() {
+        PointStore snapshot = wrap(xs, ys, size);
+        snapshot.frozen = true;
+        shared = true;
+        return snapshot;
+    }
+
+    /**
+     * Очистить хранилище
+     */
+    public void clear() {
+        if (frozen)
+            throw new IllegalStateException("снимок точек менять нельзя");
+        if (shared) {
+            xs = new double[DEFAULT_CAPACITY];
+            ys = new double[DEFAULT_CAPACITY];
+            shared = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * Получить кол-во точек
+     *
+     * @return кол-во точек
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверить, пусто ли хранилище
+     *
+     * @return флаг, пусто ли хранилище
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Получить x-координату точки
+     *
+     * @param i индекс точки
+     * @return x-координата
+     */
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Получить y-координату точки
+     *
+     * @param i индекс точки
+     * @return y-координата
+     */
+    public double getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Получить положение точки
+     * (создаёт новый вектор, в горячих циклах лучше читать массивы напрямую)
+     *
+     * @param i индекс точки
+     * @return положение точки
+     */
+    public Vector2d get(int i) {
+        return new Vector2d(xs[i], ys[i]);
+    }
+
+    /**
+     * Получить массив x-координат
+     * (действительны только первые size() элементов, массив
+     * может смениться при добавлении точек)
+     *
+     * @return массив x-координат
+     */
+    public double[] xs() {
+        return xs;
+    }
+
+    /**
+     * Получить массив y-координат
+     * (действительны только первые size() элементов, массив
+     * может смениться при добавлении точек)
+     *
+     * @return массив y-координат
+     */
+    public double[] ys() {
+        return ys;
+    }
+
+    /**
+     * Строковое представление объекта
+     *
+     * @return строковое представление объекта
+     */
+    @Override
+    public String toString() {
+        return "PointStore{size=" + size + '}';
+    }
+
+    /**
+     * Записать точки в json в прежнем формате
+     * [{"pos":{"x":..,"y":..}}, ...] без создания объектов точек
+     *
+     * @param gen генератор json
+     * @throws IOException ошибка записи
+     */
+    public void write(JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        for (int i = 0; i < size; i++) {
+            gen.writeStartObject();
+            gen.writeFieldName("pos");
+            gen.writeStartObject();
+            gen.writeNumberField("x", xs[i]);
+            gen.writeNumberField("y", ys[i]);
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Прочитать точки из json формата [{"pos":{"x":..,"y":..}}, ...]
+     * сразу в массивы координат; парсер должен стоять на начале массива
+     *
+     * @param p парсер json
+     * @return хранилище точек
+     * @throws IOException ошибка чтения
+     */
+    public static PointStore read(JsonParser p) throws IOException {
+        PointStore store = new PointStore();
+        // перебираем элементы массива
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            double x = 0;
+            double y = 0;
+            // перебираем поля точки, нас интересует только pos
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                p.nextToken();
+                if ("pos".equals(field) && p.currentToken() == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String coord = p.getCurrentName();
+                        p.nextToken();
+                        if ("x".equals(coord))
+                            x = p.getValueAsDouble();
+                        else if ("y".equals(coord))
+                            y = p.getValueAsDouble();
+                        else
+                            p.skipChildren();
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            store.add(x, y);
+        }
+        return store;
+    }
+
+    /**
+     * Запись хранилища в json в прежнем формате
+     */
+    public static class Serializer extends JsonSerializer<PointStore> {
+        @Override
+        public void serialize(PointStore store, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            store.write(gen);
+        }
+    }
+
+    /**
+     * Чтение хранилища из json сразу в массивы координат
+     */
+    public static class Deserializer extends JsonDeserializer<PointStore> {
+        @Override
+        public PointStore deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.START_ARRAY)
+                return (PointStore) ctxt.handleUnexpectedToken(PointStore.class, p);
+            return read(p);
+        }
+    }
+}
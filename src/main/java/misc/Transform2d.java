@@ -0,0 +1,192 @@
+package misc;
+
+/**
+ * Аффинное преобразование между вещественной СК задачи и целочисленной СК окна.
+ * Масштаб и сдвиг по каждой оси считаются один раз при создании, поэтому
+ * перевод одной координаты - это одно умножение со сложением (Math.fma)
+ * без делений и без создания векторов. Преобразование совпадает
+ * с CoordinateSystem2i.getCoords и CoordinateSystem2d.getCoords
+ * с точностью до округления.
+ */
+public class Transform2d {
+    /**
+     * масштаб из СК задачи в СК окна
+     */
+    private final double scaleX, scaleY;
+    /**
+     * сдвиг из СК задачи в СК окна
+     */
+    private final double offsetX, offsetY;
+    /**
+     * масштаб из СК окна в СК задачи
+     */
+    private final double inverseScaleX, inverseScaleY;
+    /**
+     * сдвиг из СК окна в СК задачи
+     */
+    private final double inverseOffsetX, inverseOffsetY;
+
+    /**
+     * Конструктор преобразования
+     *
+     * @param taskCS   СК задачи
+     * @param windowCS СК окна
+     */
+    public Transform2d(CoordinateSystem2d taskCS, CoordinateSystem2i windowCS) {
+        // window = (task - taskMin) * (windowSize - 1) / taskSize + windowMin
+        scaleX = (windowCS.getSize().x - 1) / taskCS.getSize().x;
+        scaleY = (windowCS.getSize().y - 1) / taskCS.getSize().y;
+        offsetX = windowCS.getMin().x - taskCS.getMin().x * scaleX;
+        offsetY = windowCS.getMin().y - taskCS.getMin().y * scaleY;
+        // task = (window - windowMin) * taskSize / (windowSize - 1) + taskMin
+        inverseScaleX = taskCS.getSize().x / (windowCS.getSize().x - 1);
+        inverseScaleY = taskCS.getSize().y / (windowCS.getSize().y - 1);
+        inverseOffsetX = taskCS.getMin().x - windowCS.getMin().x * inverseScaleX;
+        inverseOffsetY = taskCS.getMin().y - windowCS.getMin().y * inverseScaleY;
+    }
+
+    /**
+     * Перевести координату X из СК задачи в СК окна без округления
+     *
+     * @param x координата X в СК задачи
+     * @return координата X в СК окна
+     */
+    public double windowX(double x) {
+        return Math.fma(x, scaleX, offsetX);
+    }
+
+    /**
+     * Перевести координату Y из СК задачи в СК окна без округления
+     *
+     * @param y координата Y в СК задачи
+     * @return координата Y в СК окна
+     */
+    public double windowY(double y) {
+        return Math.fma(y, scaleY, offsetY);
+    }
+
+    /**
+     * Перевести координату X из СК окна в СК задачи
+     *
+     * @param x координата X в СК окна
+     * @return координата X в СК задачи
+     */
+    public double taskX(double x) {
+        return Math.fma(x, inverseScaleX, inverseOffsetX);
+    }
+
+    /**
+     * Перевести координату Y из СК окна в СК задачи
+     *
+     * @param y координата Y в СК окна
+     * @return координата Y в СК задачи
+     */
+    public double taskY(double y) {
+        return Math.fma(y, inverseScaleY, inverseOffsetY);
+    }
+
+    /**
+     * Перевести точку из СК задачи в СК окна
+     *
+     * @param pos точка в СК задачи
+     * @return точка в СК окна
+     */
+    public Vector2i toWindow(Vector2d pos) {
+        return new Vector2i((int) windowX(pos.x), (int) windowY(pos.y));
+    }
+
+    /**
+     * Перевести точку из СК окна в СК задачи
+     *
+     * @param pos точка в СК окна
+     * @return точка в СК задачи
+     */
+    public Vector2d toTask(Vector2i pos) {
+        return new Vector2d(taskX(pos.x), taskY(pos.y));
+    }
+
+    /**
+     * Перевести точки из СК задачи в СК окна; координаты результата
+     * идут через одну (x, y, x, y, ...), как их принимает Canvas.drawPoints,
+     * и отбрасывают дробную часть, как в CoordinateSystem2i.getCoords
+     *
+     * @param xs      координаты X в СК задачи
+     * @param ys      координаты Y в СК задачи
+     * @param indices индексы переводимых точек
+     * @param count   кол-во переводимых точек
+     * @param out     координаты в СК окна, длина не меньше 2 * count
+     */
+    public void toWindow(double[] xs, double[] ys, int[] indices, int count, float[] out) {
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            out[k * 2] = (int) Math.fma(xs[i], scaleX, offsetX);
+            out[k * 2 + 1] = (int) Math.fma(ys[i], scaleY, offsetY);
+        }
+    }
+
+    /**
+     * Перевести подряд идущие точки из СК задачи в СК окна; координаты
+     * результата идут через одну (x, y, x, y, ...) и отбрасывают дробную часть
+     *
+     * @param xs    координаты X в СК задачи
+     * @param ys    координаты Y в СК задачи
+     * @param from  индекс первой точки
+     * @param count кол-во переводимых точек
+     * @param out   координаты в СК окна, длина не меньше 2 * count
+     */
+    public void toWindow(double[] xs, double[] ys, int from, int count, float[] out) {
+        for (int k = 0; k < count; k++) {
+            out[k * 2] = (int) Math.fma(xs[from + k], scaleX, offsetX);
+            out[k * 2 + 1] = (int) Math.fma(ys[from + k], scaleY, offsetY);
+        }
+    }
+
+    /**
+     * Перевести подряд идущие точки из СК задачи в целочисленные координаты окна
+     *
+     * @param xs    координаты X в СК задачи
+     * @param ys    координаты Y в СК задачи
+     * @param from  индекс первой точки
+     * @param count кол-во переводимых точек
+     * @param outX  координаты X в СК окна
+     * @param outY  координаты Y в СК окна
+     */
+    public void toWindow(double[] xs, double[] ys, int from, int count, int[] outX, int[] outY) {
+        for (int k = 0; k < count; k++) {
+            outX[k] = (int) Math.fma(xs[from + k], scaleX, offsetX);
+            outY[k] = (int) Math.fma(ys[from + k], scaleY, offsetY);
+        }
+    }
+
+    /**
+     * Перевести точки из СК окна в СК задачи
+     *
+     * @param xs    координаты X в СК окна
+     * @param ys    координаты Y в СК окна
+     * @param count кол-во переводимых точек
+     * @param outX  координаты X в СК задачи
+     * @param outY  координаты Y в СК задачи
+     */
+    public void toTask(int[] xs, int[] ys, int count, double[] outX, double[] outY) {
+        for (int k = 0; k < count; k++) {
+            outX[k] = Math.fma(xs[k], inverseScaleX, inverseOffsetX);
+            outY[k] = Math.fma(ys[k], inverseScaleY, inverseOffsetY);
+        }
+    }
+
+    /**
+     * Перевести точки из СК окна в СК задачи; координаты идут через одну
+     * (x, y, x, y, ...)
+     *
+     * @param coords координаты в СК окна
+     * @param count  кол-во переводимых точек
+     * @param outX   координаты X в СК задачи
+     * @param outY   координаты Y в СК задачи
+     */
+    public void toTask(float[] coords, int count, double[] outX, double[] outY) {
+        for (int k = 0; k < count; k++) {
+            outX[k] = Math.fma(coords[k * 2], inverseScaleX, inverseOffsetX);
+            outY[k] = Math.fma(coords[k * 2 + 1], inverseScaleY, inverseOffsetY);
+        }
+    }
+}
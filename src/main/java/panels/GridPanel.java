@@ -29,6 +29,10 @@ public abstract class GridPanel extends Panel{
      * кол-во строк, занимаемых панелью
      */
     protected final int rowspan;
+    /**
+     * СК ячейки, переиспользуется, пока не изменится размер окна
+     */
+    private CoordinateSystem2i gridCS;
     /**
      * Конструктор панели
      *
@@ -71,12 +75,15 @@ public abstract class GridPanel extends Panel{
             return;
 
 
-        CoordinateSystem2i gridCS = new CoordinateSystem2i(
-                padding + (cellWidth + padding) * gridX,
-                padding + (cellHeight + padding) * gridY,
-                cellWidth * colspan + padding * (colspan - 1),
-                cellHeight * rowspan + padding * (rowspan - 1)
-        );
+        int minX = padding + (cellWidth + padding) * gridX;
+        int minY = padding + (cellHeight + padding) * gridY;
+        int sizeX = cellWidth * colspan + padding * (colspan - 1);
+        int sizeY = cellHeight * rowspan + padding * (rowspan - 1);
+        // новая СК создаётся, только если ячейка изменилась: неизменная СК
+        // позволяет не перерисовывать записанные слои и не пересчитывать прямоугольники
+        if (gridCS == null || gridCS.getMin().x != minX || gridCS.getMin().y != minY
+                || gridCS.getSize().x != sizeX || gridCS.getSize().y != sizeY)
+            gridCS = new CoordinateSystem2i(minX, minY, sizeX, sizeY);
 
         // рисуем ячейку вместо всей панели
         super.paint(canvas, gridCS);
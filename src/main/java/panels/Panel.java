@@ -1,8 +1,10 @@
 package panels;
 
+import app.Paints;
 import io.github.humbleui.jwm.*;
 import io.github.humbleui.skija.Canvas;
-import io.github.humbleui.skija.Paint;
+import io.github.humbleui.skija.RRect;
+import io.github.humbleui.skija.Rect;
 import misc.CoordinateSystem2i;
 import misc.Vector2i;
 
@@ -53,6 +55,14 @@ public abstract class Panel implements Consumer<Event> {
      * последняя СК окна
      */
     protected CoordinateSystem2i lastWindowCS;
+    /**
+     * область рисования для последней СК окна
+     */
+    private Rect clipRect;
+    /**
+     * подложка для последней СК окна
+     */
+    private RRect backgroundRRect;
     public Panel(Window window, boolean drawBG, int backgroundColor, int padding) {
         this.window = window;
         this.drawBG = drawBG;
@@ -69,17 +79,17 @@ public abstract class Panel implements Consumer<Event> {
     public void paint(Canvas canvas, CoordinateSystem2i windowCS) {
         // сохраняем область рисования
         canvas.save();
+        // прямоугольники пересчитываются, только когда меняется СК окна
+        if (windowCS != lastWindowCS || clipRect == null) {
+            clipRect = windowCS.getRect();
+            backgroundRRect = windowCS.getRRect(C_RAD_IN_PX);
+        }
         // определяем область рисования
-        canvas.clipRect(windowCS.getRect());
+        canvas.clipRect(clipRect);
         // рисуем подложку, если выставлен флаг
-        if (drawBG) {
-            try (var paint = new Paint()) {
-                // задаём цвет рисования
-                paint.setColor(backgroundColor);
-                // рисуем скруглённый прямоугольник как подложку
-                canvas.drawRRect(windowCS.getRRect(C_RAD_IN_PX), paint);
-            }
-        }
+        if (drawBG)
+            // рисуем скруглённый прямоугольник как подложку
+            canvas.drawRRect(backgroundRRect, Paints.fill(backgroundColor));
         canvas.translate(windowCS.getMin().x, windowCS.getMin().y);
         // пользовательская реализация рисования
         paintImpl(canvas, windowCS);
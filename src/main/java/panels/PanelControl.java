@@ -1,5 +1,6 @@
 package panels;
 
+import app.FrameScheduler;
 import app.Line;
 import app.Task;
 
@@ -47,6 +48,10 @@ public class PanelControl extends GridPanel {
      * Поля ввода
      */
     public List<Input> inputs;
+    /**
+     * Выбранный способ решения
+     */
+    private Task.SolveMode selectedMode = Task.SolveMode.SEQUENTIAL;
 
     /**
      * Панель управления
@@ -150,6 +155,26 @@ public class PanelControl extends GridPanel {
         });
         buttons.add(addTrianglePoint);
 
+        Button solveMode = new Button(
+                window, false, backgroundColor, PANEL_PADDING,
+                6, 12, 3, 8, 3, 1, selectedMode.getTitle(),
+                true, true);
+        solveMode.setOnClick(() -> {
+            // переключаем способ решения по кругу
+            selectedMode = selectedMode.next();
+            solveMode.text = selectedMode.getTitle();
+        });
+        buttons.add(solveMode);
+
+        // лимит времени решения
+        Label timeLabel = new Label(window, false, backgroundColor, PANEL_PADDING,
+                6, 12, 3, 9, 1, 1, "Лимит, с", true, true);
+        labels.add(timeLabel);
+        Input timeField = InputFactory.getInput(window, false, FIELD_BACKGROUND_COLOR, PANEL_PADDING,
+                6, 12, 4, 9, 2, 1, "60", true,
+                FIELD_TEXT_COLOR, true);
+        inputs.add(timeField);
+
         Button setRandomTriangle = new Button(
                 window, false, backgroundColor, PANEL_PADDING,
                 6, 12, 0, 9, 3, 1, "Случайный теругольник",
@@ -168,6 +193,8 @@ public class PanelControl extends GridPanel {
                 6, 12, 0, 10, 3, 1, "Загрузить",
                 true, true);
         load.setOnClick(() -> {
+            // решение старой задачи больше не нужно
+            PanelRendering.task.cancelSolve();
             PanelRendering.load();
             cancelTask();
         });
@@ -193,19 +220,37 @@ public class PanelControl extends GridPanel {
                 6, 12, 3, 11, 3, 1, "Решить",
                 true, true);
         solve.setOnClick(() -> {
-            if (!PanelRendering.task.isSolved()) {
-                if (!PanelRendering.task.isSolved()) {
-                    PanelRendering.task.solve();
-                    solve.text = "Сбросить";
-                } else {
-                    cancelTask();
+            if (PanelRendering.task.isSolving()) {
+                // решение идёт: отменяем его
+                PanelRendering.task.cancelSolve();
+            } else if (!PanelRendering.task.isSolved()) {
+                // лимит 0 - без ограничения времени
+                if (!timeField.hasValidDoubleValue() || timeField.doubleValue() < 0) {
+                    PanelLog.warning("лимит времени указан неверно");
+                    return;
                 }
-                window.requestFrame();
+                // задача могла быть загружена заново, поэтому способ решения задаём перед каждым решением
+                PanelRendering.task.setSolveMode(selectedMode);
+                if (PanelRendering.task.solveAsync((long) (timeField.doubleValue() * 1000), () -> {
+                    solve.text = PanelRendering.task.isSolved() ? "Сбросить" : "Решить";
+                    FrameScheduler.invalidate();
+                }) != null)
+                    solve.text = "Отмена";
+            } else {
+                cancelTask();
             }
+            FrameScheduler.invalidate();
         });
         buttons.add(solve);
 
 
+        Button export = new Button(
+                window, false, backgroundColor, PANEL_PADDING,
+                6, 12, 0, 5, 2, 1, "Экспорт PNG",
+                true, true);
+        export.setOnClick(PanelRendering::export);
+        buttons.add(export);
+
         Button addPoints = new Button(
                 window, false, backgroundColor, PANEL_PADDING,
                 6, 12, 2, 5, 2, 1, "Добавить точку",
@@ -223,6 +268,13 @@ public class PanelControl extends GridPanel {
             }
         });
         buttons.add(addPoints);
+
+        Button importPoints = new Button(
+                window, false, backgroundColor, PANEL_PADDING,
+                6, 12, 4, 5, 2, 1, "Импорт CSV",
+                true, true);
+        importPoints.setOnClick(PanelRendering::importPoints);
+        buttons.add(importPoints);
     }
 
     /**
@@ -239,10 +291,14 @@ public class PanelControl extends GridPanel {
             for (Input input : inputs)
                 input.accept(ee);
 
+            // перерисовываем окно, только если наведение на кнопку изменилось
+            boolean hoverChanged = false;
             for (Button button : buttons) {
                 if (lastWindowCS != null)
-                    button.checkOver(lastWindowCS.getRelativePos(new Vector2i(ee)));
+                    hoverChanged |= button.checkOver(lastWindowCS.getRelativePos(new Vector2i(ee)));
             }
+            if (hoverChanged)
+                FrameScheduler.invalidate();
 
             // событие нажатия мыши
         } else if (e instanceof EventMouseButton ee) {
@@ -266,7 +322,7 @@ public class PanelControl extends GridPanel {
                 }
             }
             // перерисовываем окно
-            window.requestFrame();
+            FrameScheduler.invalidate();
             // обработчик ввода текста
         } else if (e instanceof EventTextInput ee) {
             for (Input input : inputs) {
@@ -275,7 +331,7 @@ public class PanelControl extends GridPanel {
                 }
             }
             // перерисовываем окно
-            window.requestFrame();
+            FrameScheduler.invalidate();
             // обработчик ввода клавиш
         } else if (e instanceof EventKey ee) {
             for (Input input : inputs) {
@@ -284,7 +340,7 @@ public class PanelControl extends GridPanel {
                 }
             }
             // перерисовываем окно
-            window.requestFrame();
+            FrameScheduler.invalidate();
         }
     }
 
@@ -296,6 +352,9 @@ public class PanelControl extends GridPanel {
      */
     @Override
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
+        // дополнение инкрементального ответа запускается без нажатия кнопки
+        if (PanelRendering.task.isSolving())
+            solve.text = "Отмена";
         // выводим текст задачи
         task.paint(canvas, windowCS);
         // выводим кнопки
@@ -1,10 +1,12 @@
 package panels;
 
+import app.FrameScheduler;
+import app.Paints;
 import controls.Label;
+import controls.TextCache;
 import io.github.humbleui.jwm.*;
 import io.github.humbleui.skija.Canvas;
 import io.github.humbleui.skija.FontMetrics;
-import io.github.humbleui.skija.Paint;
 import misc.CoordinateSystem2i;
 import misc.Misc;
 
@@ -52,9 +54,21 @@ public class PanelLog extends GridPanel {
         SUCCESS
     }
     /**
-     * Запись
+     * Запись; строка для вывода собирается один раз при создании записи,
+     * а не в каждом кадре
      */
-    record Record(RecordType recordType, String text, Date date) {
+    record Record(RecordType recordType, String text, Date date, String line) {
+        /**
+         * Конструктор записи
+         *
+         * @param recordType тип записи
+         * @param text       текст записи
+         * @param date       время записи
+         */
+        Record(RecordType recordType, String text, Date date) {
+            this(recordType, text, date, new SimpleDateFormat("  HH:mm:ss").format(date) + ": " + text);
+        }
+
         /**
          * Строковое представление объекта
          *
@@ -62,7 +76,7 @@ public class PanelLog extends GridPanel {
          */
         @Override
         public String toString() {
-            return new SimpleDateFormat("  HH:mm:ss").format(date) + ": " + text;
+            return line;
         }
     }
     /**
@@ -83,6 +97,8 @@ public class PanelLog extends GridPanel {
                 logs.add(new Record(recordType, limitedLine, Calendar.getInstance().getTime()));
             }
         }
+        // новые записи нужно показать
+        FrameScheduler.invalidate();
     }
     /**
      * Добавить info запись
@@ -171,27 +187,22 @@ public class PanelLog extends GridPanel {
      */
     @Override
     public void paintImpl(Canvas canvas, CoordinateSystem2i windowCS) {
-        // создаём перо
-        try (Paint paint = new Paint()) {
-            // получаем метрики шрифта
-            FontMetrics metrics = FONT12.getMetrics();
-            // сохраняем область рисования
-            canvas.save();
-            // смещаем область рисования
-            canvas.translate(padding, windowCS.getSize().y - padding - metrics.getDescent());
-            // перебираем записи лога
-            for (int i = logs.size() - 1; i >= 0; --i) {
-                // получаем запись лога
-                Record log = logs.get(i);
-                // задаём цвет лога
-                paint.setColor(getColor(log.recordType));
-                // выводим строку на экран
-                canvas.drawString(log.toString(), 0, 0, FONT12, paint);
-                // смещаем область к следующей линии
-                canvas.translate(0, -metrics.getCapHeight() - 8);
-            }
-            // восстанавливаем область рисования
-            canvas.restore();
+        // получаем метрики шрифта
+        FontMetrics metrics = TextCache.metrics(FONT12);
+        // сохраняем область рисования
+        canvas.save();
+        // смещаем область рисования
+        canvas.translate(padding, windowCS.getSize().y - padding - metrics.getDescent());
+        // перебираем записи лога
+        for (int i = logs.size() - 1; i >= 0; --i) {
+            // получаем запись лога
+            Record log = logs.get(i);
+            // выводим строку на экран кистью цвета лога
+            canvas.drawString(log.toString(), 0, 0, FONT12, Paints.fill(getColor(log.recordType)));
+            // смещаем область к следующей линии
+            canvas.translate(0, -metrics.getCapHeight() - 8);
         }
+        // восстанавливаем область рисования
+        canvas.restore();
     }
 }
@@ -1,21 +1,28 @@
 package panels;
 
+import app.BinaryTaskCodec;
+import app.FrameScheduler;
+import app.ImageExporter;
 import app.Point;
+import app.PointImporter;
 import app.Task;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import app.TaskJournal;
+import io.github.humbleui.jwm.App;
 import io.github.humbleui.jwm.Event;
 import io.github.humbleui.jwm.EventMouseButton;
+import io.github.humbleui.jwm.EventMouseMove;
+import io.github.humbleui.jwm.EventMouseScroll;
 import io.github.humbleui.jwm.MouseButton;
 import io.github.humbleui.jwm.Window;
 import io.github.humbleui.skija.Canvas;
 import misc.CoordinateSystem2d;
 import misc.CoordinateSystem2i;
+import misc.PointStore;
 import misc.Vector2d;
 import misc.Vector2i;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -26,6 +33,42 @@ public class PanelRendering extends GridPanel {
      * Представление проблемы
      */
     public static Task task;
+    /**
+     * скорость масштабирования колесом мыши на пиксель прокрутки
+     */
+    private static final double ZOOM_SPEED = 0.0025;
+    /**
+     * сдвиг мыши в пикселях, после которого нажатие считается перетаскиванием
+     */
+    private static final int DRAG_THRESHOLD = 3;
+    /**
+     * длинная сторона экспортируемой картинки
+     */
+    private static final int EXPORT_SIZE = 4096;
+    /**
+     * файл задачи в JSON
+     */
+    private static final String FILE_PATH = "src/main/resources/conf.json";
+    /**
+     * файл задачи в двоичном формате
+     */
+    private static final String BINARY_FILE_PATH = "src/main/resources/conf" + BinaryTaskCodec.EXTENSION;
+    /**
+     * файл облака точек для импорта
+     */
+    private static final String IMPORT_PATH = "src/main/resources/points.csv";
+    /**
+     * положение мыши при нажатии левой кнопки, null, если кнопка не нажата
+     */
+    private Vector2i dragStart;
+    /**
+     * последнее положение мыши при перетаскивании
+     */
+    private Vector2i dragLast;
+    /**
+     * флаг, что мышь тащат, а не кликают
+     */
+    private boolean dragging;
 
     /**
      * Панель управления
@@ -53,7 +96,7 @@ public class PanelRendering extends GridPanel {
         );
 
         // создаём задачу без точек
-        task = new Task(cs, new ArrayList<>(), null);
+        task = new Task(cs, new PointStore(), null);
     }
 
     /**
@@ -67,14 +110,43 @@ public class PanelRendering extends GridPanel {
         super.accept(e);
         // если событие - это клик мышью
         if (e instanceof EventMouseButton ee) {
+            // отпускание левой кнопки: если мышь не тащили, это клик
+            if (!ee.isPressed() && ee.getButton() == MouseButton.PRIMARY && dragStart != null) {
+                if (!dragging)
+                    task.click(lastWindowCS.getRelativePos(dragStart), MouseButton.PRIMARY);
+                dragStart = null;
+                FrameScheduler.invalidate();
+            }
             // если последнее положение мыши сохранено и курсор был внутри
-            if (lastMove != null && lastInside){
-                // если событие - нажатие мыши
-                if (ee.isPressed())
+            else if (lastMove != null && lastInside && ee.isPressed()) {
+                // левой кнопкой можно тащить задачу, поэтому клик обрабатываем при отпускании
+                if (ee.getButton() == MouseButton.PRIMARY) {
+                    dragStart = lastMove;
+                    dragLast = lastMove;
+                    dragging = false;
+                } else
                     // обрабатываем клик по задаче
                     task.click(lastWindowCS.getRelativePos(lastMove), ee.getButton());
                 // перерисовываем окно
-                window.requestFrame();
+                FrameScheduler.invalidate();
+            }
+        } else if (e instanceof EventMouseMove ee) {
+            // сдвигаем задачу, пока левая кнопка зажата
+            if (dragStart != null && ee.isButtonDown(MouseButton.PRIMARY)) {
+                Vector2i pos = new Vector2i(ee);
+                if (Math.abs(pos.x - dragStart.x) + Math.abs(pos.y - dragStart.y) > DRAG_THRESHOLD)
+                    dragging = true;
+                if (dragging) {
+                    task.pan(pos.x - dragLast.x, pos.y - dragLast.y);
+                    dragLast = pos;
+                    FrameScheduler.invalidate();
+                }
+            }
+        } else if (e instanceof EventMouseScroll ee) {
+            // масштабируем относительно точки под курсором
+            if (lastInside && lastWindowCS != null) {
+                task.zoom(lastWindowCS.getRelativePos(lastMove), Math.exp(-ee.getDeltaY() * ZOOM_SPEED));
+                FrameScheduler.invalidate();
             }
         }
     }
@@ -97,29 +169,99 @@ public class PanelRendering extends GridPanel {
      * Сохранить файл
      */
     public static void save() {
-        String path = "src/main/resources/conf.json";
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.writeValue(new File(path), task);
-            PanelLog.success("Файл " + path + " успешно сохранён");
-        } catch (IOException e) {
-            PanelLog.error("не получилось записать файл \n" + e);
-        }
+        saveToFile(FILE_PATH);
     }
 
+    /**
+     * Сохранить файл в двоичном формате
+     */
+    public static void saveBinary() {
+        saveToFile(BINARY_FILE_PATH);
+    }
+
+    /**
+     * Сохранить в файл; формат выбирается по расширению. Файл пишется
+     * в фоновом потоке, а о результате сообщает лог; дальнейшие изменения
+     * задачи дописываются в журнал рядом с файлом
+     *
+     * @param path путь к файлу
+     */
+    public static void saveToFile(String path) {
+        TaskJournal.save(task, Paths.get(path)).whenComplete((file, error) -> App.runOnUIThread(() -> {
+            if (error == null)
+                PanelLog.success("Файл " + path + " успешно сохранён");
+            else
+                PanelLog.error("не получилось записать файл \n" + error);
+        }));
+    }
+
+
+    /**
+     * Экспортировать видимую область задачи в PNG; длинная сторона картинки
+     * равна EXPORT_SIZE, а пропорции совпадают с видимой областью. Картинка
+     * рисуется в фоновом потоке, а о результате сообщает лог
+     */
+    public static void export() {
+        String path = "src/main/resources/export.png";
+        CoordinateSystem2d view = task.getViewCS();
+        double aspect = view.getSize().x / view.getSize().y;
+        int width = aspect >= 1 ? EXPORT_SIZE : Math.max(2, (int) Math.round(EXPORT_SIZE * aspect));
+        int height = aspect >= 1 ? Math.max(2, (int) Math.round(EXPORT_SIZE / aspect)) : EXPORT_SIZE;
+        long start = System.nanoTime();
+        ImageExporter.exportAsync(task, Paths.get(path), width, height).whenComplete((file, error) -> App.runOnUIThread(() -> {
+            if (error == null)
+                PanelLog.success(String.format("Картинка %dx%d сохранена в %s за %.1f с",
+                        width, height, path, (System.nanoTime() - start) / 1e9));
+            else
+                PanelLog.error("не получилось экспортировать картинку\n" + error);
+        }));
+    }
+
+    /**
+     * Импортировать облако точек из IMPORT_PATH. Файл разбирается
+     * в фоновых потоках, а точки добавляются одной пачкой в задачу,
+     * открытую при начале импорта; если за время разбора задачу заменили
+     * или изменили, точки отбрасываются. Об ошибочных строках сообщает лог
+     */
+    public static void importPoints() {
+        PanelLog.info("импорт точек из " + IMPORT_PATH);
+        long start = System.nanoTime();
+        Task target = task;
+        int startVersion = target.getVersion();
+        PointImporter.readAsync(Paths.get(IMPORT_PATH)).whenComplete((result, error) -> App.runOnUIThread(() -> {
+            if (task != target || target.getVersion() != startVersion) {
+                PanelLog.warning("задача изменилась во время импорта, точки отброшены");
+                return;
+            }
+            if (error != null) {
+                PanelLog.error("Не получилось импортировать точки из " + IMPORT_PATH + "\n" + error);
+                return;
+            }
+            for (String message : result.getMessages())
+                PanelLog.warning(message);
+            if (result.getErrors() > result.getMessages().size())
+                PanelLog.warning("и ещё ошибочных строк: " + (result.getErrors() - result.getMessages().size()));
+            target.addPoints(result.getPoints());
+            PanelLog.success(String.format("Импортировано точек: %d из %d строк за %.1f с, ошибочных строк: %d",
+                    result.getPoints().size(), result.getLines(), (System.nanoTime() - start) / 1e9, result.getErrors()));
+            FrameScheduler.invalidate();
+        }));
+    }
 
     /**
-     * Загружаем из файла
+     * Загружаем из файла; формат выбирается по расширению
      *
      * @param path путь к файлу
      */
     public static void loadFromFile(String path) {
-        // создаём загрузчик JSON
-        ObjectMapper objectMapper = new ObjectMapper();
         try {
-            // считываем систему координат
-            task = objectMapper.readValue(new File(path), Task.class);
-            PanelLog.success("Файл " + path + " успешно загружен");
+            // точки читаются сразу в массивы координат, затем применяется журнал
+            Task loaded = TaskJournal.load(Paths.get(path));
+            if (task.getJournal() != null)
+                task.getJournal().close();
+            task = loaded;
+            PanelLog.success("Файл " + path + " успешно загружен, записей журнала: "
+                    + loaded.getJournal().getReplayed());
         } catch (IOException e) {
             PanelLog.error("Не получилось прочитать файл " + path + "\n" + e);
         }
@@ -129,8 +271,15 @@ public class PanelRendering extends GridPanel {
      * Загрузить файл
      */
     public static void load() {
-        String path = "src/main/resources/conf.json";
-        PanelLog.info("load from " + path);
-        loadFromFile(path);
+        PanelLog.info("load from " + FILE_PATH);
+        loadFromFile(FILE_PATH);
+    }
+
+    /**
+     * Загрузить файл в двоичном формате
+     */
+    public static void loadBinary() {
+        PanelLog.info("load from " + BINARY_FILE_PATH);
+        loadFromFile(BINARY_FILE_PATH);
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+import app.AngularSolver;
+import app.ChordAnswer;
+import app.PairSolver;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Тесты метода ветвей и границ
+ */
+public class AngularSolverTest {
+
+    /**
+     * Метод ветвей и границ находит отрезок той же длины, что и полный перебор,
+     * проверив лишь часть пар
+     */
+    @Test
+    public void randomTest() {
+        Random random = new Random(5);
+        for (int k = 0; k < 20; k++) {
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            for (int v = 0; v < 3; v++)
+                task.addTrianglePoint(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+            PointStore points = task.getPoints();
+            // скопления точек вокруг нескольких центров
+            double[] centers = new double[8];
+            for (int c = 0; c < centers.length; c++)
+                centers[c] = random.nextDouble() * 20 - 10;
+            for (int i = 0; i < 1000; i++) {
+                int c = random.nextInt(4) * 2;
+                points.add(centers[c] + random.nextGaussian(), centers[c + 1] + random.nextGaussian());
+            }
+            ChordAnswer sequential = PairSolver.solveSequential(task.getTriangle(), points);
+            ChordAnswer angular = AngularSolver.solve(task.getTriangle(), points);
+            assert sequential.isFound() == angular.isFound();
+            assert Math.abs(Math.sqrt(sequential.lengthSq) - Math.sqrt(angular.lengthSq)) < 1e-9;
+            assert angular.pairs < sequential.pairs / 2;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import app.ApproximateSolver;
+import app.ChordAnswer;
+import app.PairSolver;
+import app.SolveMonitor;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Тесты приближённого решения
+ */
+public class ApproximateSolverTest {
+
+    /**
+     * Найденная длина не меньше (1 - epsilon) от верхней оценки, а оптимум
+     * лежит между ними; при epsilon = 0 ответ точный
+     */
+    @Test
+    public void boundTest() {
+        Random random = new Random(7);
+        double epsilon = 0.01;
+        for (int k = 0; k < 20; k++) {
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            for (int v = 0; v < 3; v++)
+                task.addTrianglePoint(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+            PointStore points = task.getPoints();
+            // половина задач - скопления точек, половина - равномерные точки
+            for (int i = 0; i < 1000; i++) {
+                if (k % 2 == 0)
+                    points.add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+                else
+                    points.add(random.nextGaussian() * 3, random.nextGaussian() * 3);
+            }
+            double exact = Math.sqrt(PairSolver.solveSequential(task.getTriangle(), points).lengthSq);
+
+            int[] rounds = new int[1];
+            ChordAnswer approximate = ApproximateSolver.solve(task.getTriangle(), points, epsilon,
+                    new SolveMonitor(), round -> rounds[0]++);
+            double length = Math.sqrt(approximate.lengthSq);
+            double bound = Math.sqrt(approximate.upperBoundSq);
+            assert rounds[0] > 0;
+            assert approximate.i < approximate.j || !approximate.isFound();
+            assert length <= exact + 1e-9 && exact <= bound + 1e-9;
+            assert length >= (1 - epsilon) * bound - 1e-9;
+
+            ChordAnswer precise = ApproximateSolver.solve(task.getTriangle(), points, 0, new SolveMonitor(), null);
+            assert Math.abs(Math.sqrt(precise.lengthSq) - exact) < 1e-9;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import app.BatchSolver;
+import app.ChordAnswer;
+import app.PairSolver;
+import app.Task;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Тесты пакетного решения без окна
+ */
+public class BatchSolverTest {
+
+    /**
+     * Задачи из папки решаются так же, как полным перебором,
+     * а файлы без треугольника и с неполным треугольником дают строки
+     * с ошибкой, не прерывая пакет
+     */
+    @Test
+    public void folderTest() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Path folder = Files.createTempDirectory("batch");
+        Random random = new Random(8);
+        double[] lengths = new double[3];
+        for (int f = 0; f < 3; f++) {
+            PointStore points = new PointStore();
+            for (int i = 0; i < 200; i++)
+                points.add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), points, null);
+            // у последней задачи треугольник не задан
+            if (f < 2) {
+                task.addTrianglePoint(-6, -5);
+                task.addTrianglePoint(7, -4);
+                task.addTrianglePoint(1, 8);
+                ChordAnswer answer = PairSolver.solveSequential(task.getTriangle(), points);
+                lengths[f] = Math.sqrt(answer.lengthSq);
+            }
+            mapper.writeValue(folder.resolve("task" + f + ".json").toFile(), task);
+        }
+        // у треугольника нет третьей вершины
+        Files.writeString(folder.resolve("task3.json"), "{\"@class\":\"app.Task\","
+                + "\"ownCS\":{\"min\":{\"x\":0,\"y\":0},\"max\":{\"x\":1,\"y\":1}},\"points\":[],"
+                + "\"triangle\":{\"pos1\":{\"x\":0,\"y\":0},\"pos2\":{\"x\":1,\"y\":0}}}");
+        Path output = folder.resolve("result.txt");
+        int code = BatchSolver.run(new String[]{"-o", output.toString(), "-t", "2", folder.toString()});
+        assert code == 1;
+
+        List<String> lines = Files.readAllLines(output);
+        assert lines.size() == 4;
+        for (int f = 0; f < 4; f++) {
+            JsonNode line = mapper.readTree(lines.get(f));
+            assert line.get("file").asText().endsWith("task" + f + ".json");
+            if (f < 2)
+                assert Math.abs(line.get("length").asDouble() - lengths[f]) < 1e-9;
+            else
+                assert line.has("error");
+        }
+        assert mapper.readTree(lines.get(3)).get("error").asText().contains("треугольник задан не полностью");
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(folder);
+    }
+}
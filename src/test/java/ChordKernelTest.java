@@ -0,0 +1,60 @@
+import app.ChordKernel;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Тесты ядра отсечения прямой треугольником
+ */
+public class ChordKernelTest {
+
+    /**
+     * Прямая через вершину и середину противоположной стороны даёт медиану
+     */
+    @Test
+    public void medianTest() {
+        ChordKernel kernel = new ChordKernel(0, 0, 4, 0, 0, 3);
+        // прямая через вершину (0, 0) и середину гипотенузы (2, 1.5)
+        double lenght = kernel.clip(-2, -1.5, 4, 3);
+        assert Math.abs(lenght - 2.5) < 1e-12;
+        kernel.setAnchor(-2, -1.5);
+        assert Math.abs(kernel.lengthSq(4, 3) - 6.25) < 1e-12;
+        // прямая мимо треугольника
+        assert kernel.clip(-1, 5, 5, 5) == 0;
+        kernel.setAnchor(-1, 5);
+        assert kernel.lengthSq(5, 5) == 0;
+        // совпадающие точки не задают прямую
+        assert kernel.lengthSq(-1, 5) == 0;
+    }
+
+    /**
+     * Быстрый путь lengthSq совпадает с отсечением Кируса-Бека
+     */
+    @Test
+    public void randomLinesTest() {
+        Random random = new Random(6);
+        for (int k = 0; k < 100; k++) {
+            ChordKernel kernel = new ChordKernel(
+                    random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10,
+                    random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10,
+                    random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+            for (int i = 0; i < 100; i++) {
+                double px = random.nextDouble() * 20 - 10;
+                double py = random.nextDouble() * 20 - 10;
+                double qx = random.nextDouble() * 20 - 10;
+                double qy = random.nextDouble() * 20 - 10;
+                double lenght = kernel.clip(px, py, qx, qy);
+                kernel.setAnchor(px, py);
+                double lenghtSq = kernel.lengthSq(qx, qy);
+                assert Math.abs(Math.sqrt(lenghtSq) - lenght) < 1e-9;
+                // концы отрезка лежат на расстоянии его длины друг от друга
+                double dx = kernel.x2 - kernel.x1;
+                double dy = kernel.y2 - kernel.y1;
+                assert lenght == 0 || Math.abs(Math.sqrt(dx * dx + dy * dy) - lenght) < 1e-9;
+                // порог отбрасывает только заведомо не более длинные отрезки
+                assert kernel.lengthSq(qx, qy, lenghtSq * 0.5) == lenghtSq;
+                assert kernel.lengthSq(qx, qy, lenghtSq * 2 + 1) == 0;
+            }
+        }
+    }
+}
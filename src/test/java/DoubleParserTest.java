@@ -0,0 +1,98 @@
+import misc.DoubleParser;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Тесты разбора чисел из байтов
+ */
+public class DoubleParserTest {
+    /**
+     * Разобрать строку целиком
+     *
+     * @param parser разборщик
+     * @param text   текст числа
+     * @return число
+     */
+    private static double parse(DoubleParser parser, String text) {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        double value = parser.parse(buffer, 0, buffer.limit());
+        assert parser.getEnd() == buffer.limit() : text;
+        return value;
+    }
+
+    /**
+     * Проверить, что число разбирается так же, как Double.parseDouble
+     *
+     * @param parser разборщик
+     * @param text   текст числа
+     */
+    private static void assertParsed(DoubleParser parser, String text) {
+        double expected = Double.parseDouble(text);
+        double actual = parse(parser, text);
+        assert Double.doubleToRawLongBits(expected) == Double.doubleToRawLongBits(actual) : text + ": " + actual;
+    }
+
+    /**
+     * Граничные случаи: знаки, короткие записи, денормализованные числа,
+     * переполнение и больше 19 цифр
+     */
+    @Test
+    public void edgeTest() {
+        DoubleParser parser = new DoubleParser();
+        String[] texts = {
+                "0", "-0", "+0.0", "1", "-1", "1.", ".5", "-.5", "0.1", "1e0", "1E+2", "2.5e-3",
+                "123456789012345678", "9999999999999999999", "12345678901234567890123",
+                "0.30000000000000004", "9007199254740993", "1.7976931348623157e308", "1.8e308",
+                "2.2250738585072014E-308", "2.2250738585072011E-308", "4.9e-324", "2.4e-324", "1e-400",
+                "1e23", "8.41e21", "5e-324", "0.000000000000000000000000000001234",
+                "2.00000000000000011102230246251565404236316680908203125",
+                "2.00000000000000011102230246251565404236316680908203124",
+                "179769313486231580793728971405301e276"
+        };
+        for (String text : texts)
+            assertParsed(parser, text);
+    }
+
+    /**
+     * Случайные числа в записи Double.toString и в случайной
+     * десятичной записи совпадают с Double.parseDouble
+     */
+    @Test
+    public void randomTest() {
+        DoubleParser parser = new DoubleParser();
+        Random random = new Random(5);
+        for (int i = 0; i < 200_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+            if (Double.isFinite(value))
+                assertParsed(parser, Double.toString(value));
+            StringBuilder text = new StringBuilder();
+            int digits = 1 + random.nextInt(22);
+            for (int d = 0; d < digits; d++)
+                text.append((char) ('0' + random.nextInt(10)));
+            text.insert(random.nextInt(digits + 1), '.');
+            text.append('e').append(random.nextInt(700) - 350);
+            assertParsed(parser, text.toString());
+        }
+    }
+
+    /**
+     * Не числа не разбираются, а конец числа указывает на первый
+     * байт после него
+     */
+    @Test
+    public void invalidTest() {
+        DoubleParser parser = new DoubleParser();
+        for (String text : new String[]{"", "-", ".", "e5", "1e", "1e+", "x1"}) {
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+            assert Double.isNaN(parser.parse(buffer, 0, buffer.limit())) : text;
+            assert parser.getEnd() == 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap("1.5,-2".getBytes(StandardCharsets.US_ASCII));
+        assert parser.parse(buffer, 0, buffer.limit()) == 1.5;
+        assert parser.getEnd() == 3;
+        assert parser.parse(buffer, 4, buffer.limit()) == -2;
+    }
+}
@@ -0,0 +1,82 @@
+import app.ChordAnswer;
+import app.PairSolver;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import misc.Vector2d;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тесты инкрементального решения
+ */
+public class IncrementalSolveTest {
+
+    /**
+     * Дополненный по одной точке ответ совпадает с ответом полного перебора
+     */
+    @Test
+    public void extendTest() {
+        Random random = new Random(8);
+        Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+        task.addTrianglePoint(-6, -5);
+        task.addTrianglePoint(7, -4);
+        task.addTrianglePoint(1, 8);
+        PointStore points = task.getPoints();
+        ChordAnswer answer = new ChordAnswer();
+        for (int k = 0; k < 400; k++) {
+            // точки на решётке, чтобы были отрезки одинаковой длины
+            points.add(random.nextInt(20) - 10, random.nextInt(20) - 10);
+            PairSolver.extend(task.getTriangle(), points, answer, k);
+            if (k % 50 == 49) {
+                ChordAnswer sequential = PairSolver.solveSequential(task.getTriangle(), points);
+                assert answer.lengthSq == sequential.lengthSq;
+                assert answer.i == sequential.i && answer.j == sequential.j;
+            }
+        }
+    }
+
+    /**
+     * В инкрементальном режиме добавление пачки точек сбрасывает решение
+     * и откладывает одно дополнение ответа в поток интерфейса, а оно
+     * дополняет ответ в отдельном потоке
+     */
+    @Test
+    public void taskTest() throws InterruptedException {
+        // очередь вместо потока интерфейса JWM
+        BlockingQueue<Runnable> uiThread = new LinkedBlockingQueue<>();
+        Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+        task.setUiThread(uiThread::add);
+        task.addTrianglePoint(-6, -5);
+        task.addTrianglePoint(7, -4);
+        task.addTrianglePoint(1, 8);
+        task.getPoints().add(0, 0);
+        task.getPoints().add(1, 1);
+        task.setSolveMode(Task.SolveMode.INCREMENTAL);
+        task.solve();
+        assert task.isSolved();
+        task.addRandomPoints(50);
+        task.addPoint(new Vector2d(-9, -9));
+        // дополнение не выполняется на месте и ставится в очередь один раз
+        assert !task.isSolved();
+        assert !task.isSolving();
+        assert uiThread.size() == 1;
+        uiThread.take().run();
+        assert task.isSolving();
+        while (task.isSolving()) {
+            Runnable job = uiThread.poll(10, TimeUnit.SECONDS);
+            assert job != null;
+            job.run();
+        }
+        assert task.isSolved();
+        // после смены способа решения добавление точки сбрасывает решение без дополнения
+        task.setSolveMode(Task.SolveMode.SEQUENTIAL);
+        task.addPoint(new Vector2d(9, -9));
+        assert !task.isSolved();
+        assert uiThread.isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+import app.ChordAnswer;
+import app.PairSolver;
+import app.SolveMonitor;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Тесты перебора пар точек
+ */
+public class PairSolverTest {
+    /**
+     * Создать задачу с треугольником
+     *
+     * @param points точки
+     * @return задача
+     */
+    private static Task makeTask(PointStore points) {
+        Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), points, null);
+        task.addTrianglePoint(-6, -5);
+        task.addTrianglePoint(7, -4);
+        task.addTrianglePoint(1, 8);
+        return task;
+    }
+
+    /**
+     * Проверить, что параллельный перебор даёт тот же ответ, что и последовательный
+     *
+     * @param points точки
+     */
+    private static void checkParity(PointStore points) {
+        Task task = makeTask(points);
+        ChordAnswer sequential = PairSolver.solveSequential(task.getTriangle(), points);
+        ChordAnswer parallel = PairSolver.solveParallel(task.getTriangle(), points);
+        assert sequential.isFound();
+        assert sequential.lengthSq == parallel.lengthSq;
+        assert sequential.i == parallel.i && sequential.j == parallel.j;
+    }
+
+    /**
+     * Совпадение ответов на случайных точках
+     */
+    @Test
+    public void randomParityTest() {
+        Random random = new Random(3);
+        PointStore points = new PointStore();
+        for (int i = 0; i < 1500; i++)
+            points.add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+        checkParity(points);
+    }
+
+    /**
+     * Совпадение ответов на решётке, где много отрезков одинаковой длины
+     */
+    @Test
+    public void latticeParityTest() {
+        PointStore points = new PointStore();
+        for (int i = 0; i < 30; i++)
+            for (int j = 0; j < 30; j++)
+                points.add(i - 15, j - 15);
+        // те же точки ещё раз: у каждой пары есть равные ей по длине пары дальше по списку
+        for (int i = 0; i < 30; i++)
+            for (int j = 0; j < 30; j++)
+                points.add(i - 15, j - 15);
+        checkParity(points);
+    }
+
+    /**
+     * Перебор без повторных прямых находит отрезок той же длины
+     * на той же прямой, что и полный перебор
+     */
+    @Test
+    public void dedupTest() {
+        Random random = new Random(4);
+        PointStore points = new PointStore();
+        // решётка 30x30, как у случайных точек задачи, с множеством совпадений
+        for (int i = 0; i < 3000; i++)
+            points.add(random.nextInt(30) * 20.0 / 30 - 10, random.nextInt(30) * 20.0 / 30 - 10);
+        Task task = makeTask(points);
+        ChordAnswer sequential = PairSolver.solveSequential(task.getTriangle(), points);
+        ChordAnswer dedup = PairSolver.solveDedup(task.getTriangle(), points);
+        assert dedup.i < dedup.j;
+        assert Math.abs(Math.sqrt(sequential.lengthSq) - Math.sqrt(dedup.lengthSq)) < 1e-9;
+        // обе точки ответа лежат на прямой полного перебора
+        double dx = points.getX(sequential.j) - points.getX(sequential.i);
+        double dy = points.getY(sequential.j) - points.getY(sequential.i);
+        for (int k : new int[]{dedup.i, dedup.j}) {
+            double cross = dx * (points.getY(k) - points.getY(sequential.i)) - dy * (points.getX(k) - points.getX(sequential.i));
+            assert Math.abs(cross) < 1e-9;
+        }
+    }
+
+    /**
+     * Отменённый перебор останавливается после первой строки,
+     * а ход решения доходит до конца у полного перебора
+     */
+    @Test
+    public void monitorTest() {
+        Random random = new Random(9);
+        PointStore points = new PointStore();
+        for (int i = 0; i < 500; i++)
+            points.add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+        Task task = makeTask(points);
+
+        SolveMonitor full = new SolveMonitor();
+        int[] reported = new int[1];
+        full.setOnProgress(percent -> reported[0] = percent);
+        ChordAnswer answer = PairSolver.solveSequential(task.getTriangle(), points, full);
+        assert full.getProgress() == 1 && reported[0] == 100;
+        assert full.getBest().lengthSq == answer.lengthSq;
+
+        SolveMonitor cancelled = new SolveMonitor();
+        cancelled.cancel();
+        ChordAnswer partial = PairSolver.solveSequential(task.getTriangle(), points, cancelled);
+        assert partial.pairs == points.size();
+        assert cancelled.isStopped() && !cancelled.isTimedOut();
+    }
+}
@@ -0,0 +1,41 @@
+import misc.PngWriter;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Тесты потоковой записи PNG
+ */
+public class PngWriterTest {
+
+    /**
+     * Записанная по строкам картинка читается стандартным декодером
+     * с теми же цветами пикселей
+     */
+    @Test
+    public void roundTripTest() throws Exception {
+        int width = 300, height = 170;
+        Random random = new Random(20);
+        byte[] rgba = new byte[width * height * 4];
+        for (int i = 0; i < rgba.length; i++)
+            rgba[i] = (byte) ((i / 4) % 7 == 0 ? random.nextInt(256) : i % 251);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PngWriter writer = new PngWriter(bytes, width, height)) {
+            for (int y = 0; y < height; y++)
+                writer.writeRow(rgba, y * width * 4);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assert image.getWidth() == width && image.getHeight() == height;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int p = (y * width + x) * 4;
+                int expected = (rgba[p] & 0xFF) << 16 | (rgba[p + 1] & 0xFF) << 8 | (rgba[p + 2] & 0xFF);
+                assert (image.getRGB(x, y) & 0xFFFFFF) == expected;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import misc.PointGrid;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Тесты сетки для поиска точек в прямоугольнике
+ */
+public class PointGridTest {
+
+    /**
+     * Сетка находит те же точки, что и перебор всех точек, в том числе
+     * после добавления точек за её границами и после очистки хранилища
+     */
+    @Test
+    public void queryTest() {
+        Random random = new Random(12);
+        PointStore points = new PointStore();
+        PointGrid grid = new PointGrid(points);
+        for (int round = 0; round < 6; round++) {
+            // каждый раунд точки разлетаются дальше, выходя за границы сетки
+            double spread = 5 * (round + 1);
+            for (int i = 0; i < 3000; i++)
+                points.add(random.nextGaussian() * spread, random.nextGaussian() * spread);
+            if (round == 3) {
+                points.clear();
+                grid.reset();
+                points.add(1, 1);
+            }
+            for (int q = 0; q < 50; q++) {
+                double left = random.nextDouble() * 40 - 20, bottom = random.nextDouble() * 40 - 20;
+                double right = left + random.nextDouble() * 30, top = bottom + random.nextDouble() * 30;
+                int found = grid.query(left, bottom, right, top);
+                int[] indices = Arrays.copyOf(grid.getResult(), found);
+                Arrays.sort(indices);
+                int expected = 0;
+                for (int i = 0; i < points.size(); i++) {
+                    double x = points.getX(i), y = points.getY(i);
+                    if (x >= left && x <= right && y >= bottom && y <= top) {
+                        assert expected < found && indices[expected] == i;
+                        expected++;
+                    }
+                }
+                assert expected == found;
+                assert grid.count(left, bottom, right, top) == found;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import app.PointImporter;
+import app.Task;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Тесты импорта облака точек из текста
+ */
+public class PointImporterTest {
+    /**
+     * Строки разных форматов разбираются, ошибочные считаются с верными
+     * номерами, а результат не зависит от размера кусков
+     */
+    @Test
+    public void importTest() throws IOException {
+        Random random = new Random(13);
+        PointStore expected = new PointStore();
+        StringBuilder text = new StringBuilder("# x,y\n\n");
+        int line = 2;
+        int errors = 0;
+        int firstError = 0;
+        String[] separators = {",", ";", " ", "\t", " , "};
+        for (int i = 0; i < 5000; i++) {
+            line++;
+            if (i % 97 == 5) {
+                text.append(i % 2 == 0 ? "1.5,abc\n" : "oops\r\n");
+                errors++;
+                if (firstError == 0)
+                    firstError = line;
+                continue;
+            }
+            double x = random.nextDouble() * 200 - 100;
+            double y = random.nextGaussian() * 1e-3;
+            expected.add(x, y);
+            text.append(x).append(separators[i % separators.length]).append(y);
+            // третий столбец XYZ и окончания строк Windows
+            if (i % 3 == 0)
+                text.append(",").append(random.nextInt(10));
+            text.append(i % 4 == 0 ? "\r\n" : "\n");
+        }
+        text.append("7e2 -1.");
+        expected.add(700, -1);
+        line++;
+
+        Path file = Files.createTempFile("points", ".csv");
+        try {
+            Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+            for (int chunkSize : new int[]{PointImporter.CHUNK_SIZE, 1000, 7}) {
+                PointImporter.Result result = PointImporter.read(file, chunkSize);
+                assert result.getLines() == line : chunkSize + ": " + result.getLines();
+                assert result.getErrors() == errors;
+                assert result.getMessages().size() == PointImporter.MAX_MESSAGES;
+                assert result.getMessages().get(0).startsWith("строка " + firstError + ": ") : result.getMessages().get(0);
+                assert result.getPoints().size() == expected.size();
+                for (int i = 0; i < expected.size(); i++) {
+                    assert result.getPoints().getX(i) == expected.getX(i);
+                    assert result.getPoints().getY(i) == expected.getY(i);
+                }
+            }
+
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            task.getPoints().add(1, 2);
+            task.addPoints(PointImporter.read(file).getPoints());
+            assert task.getPoints().size() == expected.size() + 1;
+            assert task.getPoints().getX(expected.size()) == 700;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
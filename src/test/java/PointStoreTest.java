@@ -0,0 +1,65 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import misc.PointStore;
+import org.junit.Test;
+
+/**
+ * Тесты хранилища точек
+ */
+public class PointStoreTest {
+
+    /**
+     * Хранилище растёт и сохраняет порядок точек
+     */
+    @Test
+    public void growTest() {
+        PointStore store = new PointStore(2);
+        for (int i = 0; i < 100; i++)
+            store.add(i, -i);
+        assert store.size() == 100;
+        for (int i = 0; i < 100; i++) {
+            assert store.getX(i) == i;
+            assert store.getY(i) == -i;
+        }
+        store.clear();
+        assert store.isEmpty();
+    }
+
+    /**
+     * Запись и чтение json в формате [{"pos":{"x":..,"y":..}}]
+     */
+    @Test
+    public void jsonTest() throws Exception {
+        PointStore store = new PointStore();
+        store.add(1.5, -2.25);
+        store.add(0.1, 7);
+        ObjectMapper objectMapper = new ObjectMapper();
+        String json = objectMapper.writeValueAsString(store);
+        assert json.equals("[{\"pos\":{\"x\":1.5,\"y\":-2.25}},{\"pos\":{\"x\":0.1,\"y\":7.0}}]");
+        PointStore read = objectMapper.readValue(json, PointStore.class);
+        assert read.size() == 2;
+        assert read.getX(1) == 0.1 && read.getY(1) == 7;
+    }
+
+    /**
+     * Снимок не меняется ни при добавлении точек, ни при очистке хранилища
+     */
+    @Test
+    public void snapshotTest() {
+        PointStore store = new PointStore(4);
+        for (int i = 0; i < 3; i++)
+            store.add(i, -i);
+        PointStore snapshot = store.snapshot();
+        store.add(3, -3);
+        store.clear();
+        store.add(100, 100);
+        assert snapshot.size() == 3;
+        for (int i = 0; i < 3; i++)
+            assert snapshot.getX(i) == i && snapshot.getY(i) == -i;
+        try {
+            snapshot.add(0, 0);
+            assert false;
+        } catch (IllegalStateException e) {
+            // снимок менять нельзя
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import app.BinaryTaskCodec;
+import app.Line;
+import app.Task;
+import app.TaskCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import misc.Vector2d;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Тесты потокового чтения и записи задачи
+ */
+public class TaskCodecTest {
+    /**
+     * Создать случайную задачу
+     *
+     * @param seed     зерно генератора
+     * @param triangle нужно ли задать треугольник
+     * @return задача
+     */
+    private static Task randomTask(long seed, boolean triangle) {
+        Random random = new Random(seed);
+        Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+        if (triangle)
+            for (int v = 0; v < 3; v++)
+                task.addTrianglePoint(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+        for (int i = 0; i < 1000; i++)
+            task.getPoints().add(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+        return task;
+    }
+
+    /**
+     * Проверить, что задачи совпадают
+     *
+     * @param expected ожидаемая задача
+     * @param actual   прочитанная задача
+     */
+    private static void assertSame(Task expected, Task actual) {
+        assert expected.getOwnCS().equals(actual.getOwnCS());
+        assert expected.getPoints().size() == actual.getPoints().size();
+        for (int i = 0; i < expected.getPoints().size(); i++) {
+            assert expected.getPoints().getX(i) == actual.getPoints().getX(i);
+            assert expected.getPoints().getY(i) == actual.getPoints().getY(i);
+        }
+        if (expected.getTriangle() == null) {
+            assert actual.getTriangle() == null;
+        } else {
+            assert expected.getTriangle().getPos1().equals(actual.getTriangle().getPos1());
+            assert expected.getTriangle().getPos2().equals(actual.getTriangle().getPos2());
+            assert expected.getTriangle().getPos3().equals(actual.getTriangle().getPos3());
+        }
+    }
+
+    /**
+     * Задача, записанная кодеком, читается кодеком без потерь
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        for (boolean triangle : new boolean[]{false, true}) {
+            Task task = randomTask(3, triangle);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TaskCodec.write(task, out);
+            assertSame(task, TaskCodec.read(new ByteArrayInputStream(out.toByteArray())));
+        }
+    }
+
+    /**
+     * Кодек пишет тот же JSON, что и ObjectMapper, и читает его файлы
+     */
+    @Test
+    public void objectMapperTest() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Task task = randomTask(7, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskCodec.write(task, out);
+        String json = out.toString(StandardCharsets.UTF_8);
+        assert json.equals(mapper.writeValueAsString(task));
+        assertSame(task, mapper.readValue(json, Task.class));
+        assertSame(task, TaskCodec.read(new ByteArrayInputStream(mapper.writeValueAsBytes(task))));
+    }
+
+    /**
+     * Двоичный файл хранит точки, треугольник и ответ без потерь
+     */
+    @Test
+    public void binaryTest() throws IOException {
+        Path dir = Files.createTempDirectory("codec");
+        try {
+            for (boolean triangle : new boolean[]{false, true}) {
+                Task task = randomTask(11, triangle);
+                if (triangle)
+                    task.solve();
+                Path file = dir.resolve("task" + BinaryTaskCodec.EXTENSION);
+                TaskCodec.write(task, file);
+                // 16 байт на точку после заголовка
+                assert Files.size(file) < task.getPoints().size() * 16L + 256;
+                Task read = TaskCodec.read(file);
+                assertSame(task, read);
+                assert read.isSolved() == task.isSolved();
+            }
+            // прямые пишутся и читаются, а невозможное их кол-во в заголовке - ошибка формата
+            ArrayList<Line> lines = new ArrayList<>();
+            lines.add(new Line(new Vector2d(1, 2), new Vector2d(3, 4)));
+            lines.add(new Line(new Vector2d(-5, 6), new Vector2d(7, -8)));
+            Path withLines = dir.resolve("lines" + BinaryTaskCodec.EXTENSION);
+            TaskCodec.write(new Task(new CoordinateSystem2d(0, 0, 1, 1), null, lines), withLines);
+            Line read = TaskCodec.read(withLines).getLines().get(1);
+            assert read.getPos1().equals(new Vector2d(-5, 6)) && read.getPos2().equals(new Vector2d(7, -8));
+            try (FileChannel channel = FileChannel.open(withLines, StandardOpenOption.WRITE)) {
+                // кол-во прямых лежит после трёх int и 19 double заголовка
+                channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, Integer.MAX_VALUE), 12 + 19 * 8);
+            }
+            try {
+                TaskCodec.read(withLines);
+                assert false;
+            } catch (IOException e) {
+                assert e.getMessage().contains("повреждён");
+            }
+
+            Path empty = dir.resolve("empty" + BinaryTaskCodec.EXTENSION);
+            TaskCodec.write(new Task(new CoordinateSystem2d(0, 0, 1, 1), null, null), empty);
+            assert TaskCodec.read(empty).getPoints().isEmpty();
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator)
+                    Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+}
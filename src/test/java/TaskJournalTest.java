@@ -0,0 +1,142 @@
+import app.Task;
+import app.TaskCodec;
+import app.TaskJournal;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import misc.Vector2d;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+/**
+ * Тесты журнала изменений задачи
+ */
+public class TaskJournalTest {
+    /**
+     * Проверить, что у задач одинаковые точки и треугольник
+     *
+     * @param expected ожидаемая задача
+     * @param actual   прочитанная задача
+     */
+    private static void assertSame(Task expected, Task actual) {
+        PointStore points = expected.getPoints();
+        assert points.size() == actual.getPoints().size();
+        for (int i = 0; i < points.size(); i++)
+            assert points.getX(i) == actual.getPoints().getX(i) && points.getY(i) == actual.getPoints().getY(i);
+        if (expected.getTriangle() == null) {
+            assert actual.getTriangle() == null;
+        } else {
+            assert expected.getTriangle().getPos1().equals(actual.getTriangle().getPos1());
+            assert expected.getTriangle().getPos2().equals(actual.getTriangle().getPos2());
+            assert expected.getTriangle().getPos3().equals(actual.getTriangle().getPos3());
+        }
+    }
+
+    /**
+     * Изменения после сохранения попадают в журнал, а не в снимок, и при
+     * чтении применяются к снимку; оборванный хвост журнала отбрасывается
+     */
+    @Test
+    public void replayTest() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        Path file = dir.resolve("conf.json");
+        try {
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            task.addPoint(new Vector2d(1, 2));
+            TaskJournal.save(task, file).get();
+            task.addRandomPoints(500);
+            task.setRandomTriangle();
+            task.addPoint(new Vector2d(3, 4));
+            task.getJournal().close().get();
+
+            assert TaskCodec.read(file).getPoints().size() == 1;
+            assertSame(task, TaskJournal.read(file));
+            // сбой посреди записи оставляет неполную запись в конце
+            Files.write(TaskJournal.journalFile(file), new byte[]{1, 5, 0}, StandardOpenOption.APPEND);
+            assertSame(task, TaskJournal.read(file));
+
+            // загрузка подключает журнал и дописывает его после целых записей
+            Task loaded = TaskJournal.load(file);
+            assert loaded.getJournal().getReplayed() == 3;
+            loaded.clear();
+            for (int i = 0; i < 3; i++)
+                loaded.addTrianglePoint(i, i * i);
+            loaded.addPoint(new Vector2d(5, 6));
+            loaded.getJournal().close().get();
+            Task read = TaskJournal.read(file);
+            assertSame(loaded, read);
+            assert read.getPoints().size() == 1 && read.getTriangle() != null;
+
+            // сохранение сжимает журнал в новый снимок
+            Task compacted = TaskJournal.load(file);
+            TaskJournal.save(compacted, file).get();
+            compacted.getJournal().close().get();
+            assert TaskCodec.read(file).getPoints().size() == 1;
+            Task reloaded = TaskJournal.load(file);
+            assert reloaded.getJournal().getReplayed() == 0;
+            reloaded.getJournal().close().get();
+
+            // сжатие между точками треугольника не теряет первые точки
+            Task clicked = TaskJournal.load(file);
+            clicked.clear();
+            clicked.addTrianglePoint(1, 1);
+            clicked.addTrianglePoint(-3, 2);
+            clicked.getJournal().compact().get();
+            clicked.addTrianglePoint(4, -5);
+            clicked.addTrianglePoint(7, 7);
+            clicked.getJournal().close().get();
+            Task replayed = TaskJournal.read(file);
+            assertSame(clicked, replayed);
+            assert replayed.getTriangle().getPos3().equals(new Vector2d(4, -5));
+
+            // журнал привязан к содержимому снимка, а не к времени изменения
+            Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            assertSame(clicked, TaskJournal.read(file));
+            // снимок того же размера с другой цифрой
+            byte[] bytes = Files.readAllBytes(file);
+            int digit = 0;
+            while (bytes[digit] < '1' || bytes[digit] > '8')
+                digit++;
+            bytes[digit]++;
+            Files.write(file, bytes);
+            assert TaskJournal.read(file).getTriangle() == null;
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path path : (Iterable<Path>) files::iterator)
+                    Files.delete(path);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Большая пачка точек попадает в файл новым снимком, а не записью журнала
+     */
+    @Test
+    public void largeBatchTest() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        Path file = dir.resolve("conf.tsk");
+        try {
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            TaskJournal.save(task, file).get();
+            PointStore batch = new PointStore();
+            for (int i = 0; i < 100_000; i++)
+                batch.add(i % 20 - 10, i % 17 - 8);
+            task.addPoints(batch);
+            task.getJournal().close().get();
+            assert TaskCodec.read(file).getPoints().size() == batch.size();
+            assert Files.size(TaskJournal.journalFile(file)) < 1024;
+            assertSame(task, TaskJournal.read(file));
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path path : (Iterable<Path>) files::iterator)
+                    Files.delete(path);
+            }
+            Files.delete(dir);
+        }
+    }
+}
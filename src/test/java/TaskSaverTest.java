@@ -0,0 +1,47 @@
+import app.Task;
+import app.TaskCodec;
+import app.TaskSaver;
+import misc.CoordinateSystem2d;
+import misc.PointStore;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Тесты фонового сохранения задачи
+ */
+public class TaskSaverTest {
+    /**
+     * Частые сохранения объединяются в одну запись последнего снимка,
+     * а изменения задачи после сохранения в файл не попадают
+     */
+    @Test
+    public void coalesceTest() throws Exception {
+        Path dir = Files.createTempDirectory("saver");
+        Path file = dir.resolve("conf.json");
+        try {
+            Task task = new Task(new CoordinateSystem2d(-10, -10, 20, 20), new PointStore(), null);
+            task.getPoints().add(1, 1);
+            CompletableFuture<Path> first = TaskSaver.save(task, file);
+            task.getPoints().add(2, 2);
+            CompletableFuture<Path> second = TaskSaver.save(task, file);
+            assert first == second;
+            task.getPoints().clear();
+            task.getPoints().add(5, 5);
+            second.get();
+            PointStore points = TaskCodec.read(file).getPoints();
+            assert points.size() == 2;
+            assert points.getX(1) == 2 && points.getY(1) == 2;
+            // временный файл заменил целевой
+            try (Stream<Path> files = Files.list(dir)) {
+                assert files.count() == 1;
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+}
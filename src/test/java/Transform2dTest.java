@@ -0,0 +1,53 @@
+import misc.CoordinateSystem2d;
+import misc.CoordinateSystem2i;
+import misc.Transform2d;
+import misc.Vector2d;
+import misc.Vector2i;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Тесты преобразования между СК задачи и СК окна
+ */
+public class Transform2dTest {
+
+    /**
+     * Преобразование совпадает с getCoords обеих СК с точностью до округления,
+     * а пакетные методы - с переводом по одной точке
+     */
+    @Test
+    public void getCoordsTest() {
+        Random random = new Random(18);
+        CoordinateSystem2i windowCS = new CoordinateSystem2i(40, 25, 1200, 700);
+        CoordinateSystem2d taskCS = new CoordinateSystem2d(-13.5, 2.25, 31, 17);
+        Transform2d transform = windowCS.getTransform(taskCS);
+        int n = 1000;
+        double[] xs = new double[n], ys = new double[n];
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = taskCS.getMin().x + random.nextDouble() * taskCS.getSize().x;
+            ys[i] = taskCS.getMin().y + random.nextDouble() * taskCS.getSize().y;
+            indices[i] = n - 1 - i;
+        }
+        float[] screen = new float[n * 2];
+        transform.toWindow(xs, ys, indices, n, screen);
+        int[] screenX = new int[n], screenY = new int[n];
+        transform.toWindow(xs, ys, 0, n, screenX, screenY);
+        double[] backX = new double[n], backY = new double[n];
+        transform.toTask(screenX, screenY, n, backX, backY);
+        for (int i = 0; i < n; i++) {
+            Vector2i expected = windowCS.getCoords(xs[i], ys[i], taskCS);
+            Vector2i actual = transform.toWindow(new Vector2d(xs[i], ys[i]));
+            // отличие возможно только из-за округления на границе пикселя
+            assert Math.abs(expected.x - actual.x) <= 1 && Math.abs(expected.y - actual.y) <= 1;
+            assert screenX[i] == actual.x && screenY[i] == actual.y;
+            assert screen[(n - 1 - i) * 2] == actual.x && screen[(n - 1 - i) * 2 + 1] == actual.y;
+
+            Vector2d task = taskCS.getCoords(actual, windowCS);
+            assert Math.abs(task.x - backX[i]) < 1e-9 && Math.abs(task.y - backY[i]) < 1e-9;
+            Vector2d single = transform.toTask(actual);
+            assert single.x == backX[i] && single.y == backY[i];
+        }
+    }
+}